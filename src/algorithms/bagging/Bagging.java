@@ -31,18 +31,22 @@ import PRFramework.Core.Common.Feature;
 import PRFramework.Core.Common.Instance;
 import PRFramework.Core.Common.InstanceModel;
 import PRFramework.Core.Common.RefObject;
+import PRFramework.Core.Common.RandomGenerator;
+import PRFramework.Core.Samplers.RandomSamplerWithReplacement;
 import PRFramework.Core.SupervisedClassifiers.DecisionTrees.Builder.DecisionTreeBuilder;
+import PRFramework.Core.SupervisedClassifiers.DecisionTrees.DecisionTree;
 import PRFramework.Core.SupervisedClassifiers.DecisionTrees.DistributionTesters.PureNodeStopCondition;
 import PRFramework.Core.SupervisedClassifiers.DecisionTrees.PruneTesters.PessimisticError;
 import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.IEmergingPattern;
-import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.Miners.BaggingMiner;
 import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.PatternTests.QualityBasedPatternTester;
 import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.Qualities.Statistical.ConfidenceQuality;
 import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.Qualities.Statistical.GrowthRateQuality;
 import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.SubsetRelation;
 import static PRFramework.Core.SupervisedClassifiers.InstanceModelHelper.classFeature;
 import framework.utils.Base;
+import framework.utils.ParallelEnsemble;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import keel.Dataset.InstanceSet;
 import framework.items.Pattern;
@@ -62,6 +66,8 @@ public class Bagging extends Bagging_Wrapper
 
     public int treeCount = 100;
 
+    public long seed;
+
     //Timing
     protected long initialTime;
 
@@ -83,6 +89,7 @@ public class Bagging extends Bagging_Wrapper
         }
         maxDepth = Integer.parseInt(params.get("maxDepth"));
         treeCount = Integer.parseInt(params.get("treeCount"));
+        seed = params.containsKey("Seed") ? Long.parseLong(params.get("Seed")) : System.currentTimeMillis();
     }
 
     public void mine ()
@@ -96,20 +103,15 @@ public class Bagging extends Bagging_Wrapper
         //Check  time		
         setInitialTime();
 
-        BaggingMiner miner = new BaggingMiner();
-        DecisionTreeBuilder builder = new DecisionTreeBuilder();
-        builder.setMaxDepth(maxDepth);
-        builder.setPruneResult(true);
-        builder.setPruneTester(new PessimisticError()); 
-        builder.setMinimalInstanceMembership(0.05);
-        builder.setStopCondition(new PureNodeStopCondition());
-
-        miner.setDecisionTreeBuilder(builder);
-        miner.setFilterRelation(subsetRelation);
-        miner.setTreeCount(treeCount);
-        miner.setEPTester(new QualityBasedPatternTester(new GrowthRateQuality(), growthRate));
-
-        ArrayList<IEmergingPattern> prfPatterns = miner.mine(model, prfInstances, classFeature.argValue);
+        // Each tree is built from a bootstrap sample of the training instances
+        Instance[] instances = prfInstances.toArray(new Instance[0]);
+        ArrayList<IEmergingPattern> prfPatterns = ParallelEnsemble.mine(treeCount, seed, subsetRelation, (tree, random) -> {
+            RandomSamplerWithReplacement sampler = new RandomSamplerWithReplacement();
+            sampler.setRandomGenerator(new RandomGenerator(random.nextInt()));
+            ArrayList<Instance> sample = sampler.Sample(Arrays.asList(instances), instances.length);
+            DecisionTree decisionTree = createBuilder().Build(model, sample, classFeature.argValue);
+            return ParallelEnsemble.extractPatterns(decisionTree, model, classFeature.argValue, new QualityBasedPatternTester(new GrowthRateQuality(), growthRate));
+        });
         ArrayList<Pattern> keelPatterns = new ArrayList<>();
 
         Base.convertPRFPatternsToKeelPatterns(prfPatterns, keelPatterns);
@@ -121,6 +123,17 @@ public class Bagging extends Bagging_Wrapper
         super.setPatterns(keelPatterns);
     }
 
+    private DecisionTreeBuilder createBuilder ()
+    {
+        DecisionTreeBuilder builder = new DecisionTreeBuilder();
+        builder.setMaxDepth(maxDepth);
+        builder.setPruneResult(true);
+        builder.setPruneTester(new PessimisticError()); 
+        builder.setMinimalInstanceMembership(0.05);
+        builder.setStopCondition(new PureNodeStopCondition());
+        return builder;
+    }
+
     /**
      * Sets the time counter
      *
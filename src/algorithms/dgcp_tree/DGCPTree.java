@@ -34,6 +34,11 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
 import javafx.util.Pair;
 import javax.print.attribute.HashAttributeSet;
 import keel.Dataset.InstanceSet;
@@ -62,13 +67,15 @@ public class DGCPTree extends Model {
     HashMap<Item, Double> supportRatio;
 
     /**
-     * The bit strings for each item on the positive class.
+     * The bit strings for each item on the positive class. The bit k is the
+     * bit {@code k % 64} of the word {@code k / 64}.
      */
-    HashMap<Item, String> bitStringsPos;
+    HashMap<Item, long[]> bitStringsPos;
     /**
-     * The bit strings for each item on the negative class.
+     * The bit strings for each item on the negative class. The bit k is the
+     * bit {@code k % 64} of the word {@code k / 64}.
      */
-    HashMap<Item, String> bitStringsNeg;
+    HashMap<Item, long[]> bitStringsNeg;
 
     /**
      * It stores the items that are covered by another one in Dn
@@ -85,16 +92,47 @@ public class DGCPTree extends Model {
      */
     HashMap<Item, BSCTree> pathCodeDn;
 
+    /**
+     * Whether the children of each node of the DGCP-Tree are grown in
+     * parallel (the default, as in IEPMiner and TopK).
+     */
+    boolean parallelBranches;
+
     @Override
     public void learn(InstanceSet training, HashMap<String, String> params) {
         double minSupport = Double.parseDouble(params.get("Min Support"));
         int minCounts = ((Double) (minSupport * training.getNumInstances())).intValue();
+        parallelBranches = !"sequential".equals(params.get("Branch Mining"));
         long t_ini = System.currentTimeMillis();
         int numClasses = training.getAttributeDefinitions().getOutputAttribute(0).getNumNominalValues();
+
+        // Each class builds and mines its own DGCP-Tree, so the classes are mined
+        // concurrently and the results are added in class order.
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(numClasses, Runtime.getRuntime().availableProcessors()));
+        ArrayList<Future<ArrayList<Pattern>>> tasks = new ArrayList<>();
         for (int i = 0; i < numClasses; i++) {
-            System.out.println("Mining Class: " + training.getAttributeDefinitions().getOutputAttribute(0).getNominalValue(i));
-            buildInitialTree(Utils.generatePatterns(training, i), minSupport, i);
-            mineGrowingTree(root, minCounts, new Pattern(new ArrayList<Item>(), i));
+            final int clase = i;
+            tasks.add(pool.submit(() -> {
+                System.out.println("Mining Class: " + training.getAttributeDefinitions().getOutputAttribute(0).getNominalValue(clase));
+                DGCPTree tree = new DGCPTree();
+                tree.parallelBranches = parallelBranches;
+                tree.patterns = new ArrayList<>();
+                tree.buildInitialTree(Utils.generatePatterns(training, clase), minSupport, clase);
+                tree.mineGrowingTree(tree.root, minCounts, new Pattern(new ArrayList<Item>(), clase));
+                return tree.patterns;
+            }));
+        }
+        try {
+            for (Future<ArrayList<Pattern>> task : tasks) {
+                super.patterns.addAll(task.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while mining the classes", ex);
+        } catch (ExecutionException ex) {
+            throw new RuntimeException("Error in the mining of the classes", ex);
+        } finally {
+            pool.shutdown();
         }
         System.out.println("Mining Time: " + ((System.currentTimeMillis() - t_ini) / 1000.0) + " seconds");
     }
@@ -131,26 +169,26 @@ public class DGCPTree extends Model {
         this.pathCodeDp = new HashMap<>();
         this.coverDn = new HashMap<>();
         int minCounts = ((Double) (minimumSupport * dataset.size())).intValue();
+        int numWords = (dataset.size() + 63) >>> 6;
 
-        // Split the dataset into Dp and Dn, and calculate the counts for the supportRatio of each item.
-        ArrayList<Pattern> Dp = new ArrayList<>();
-        ArrayList<Pattern> Dn = new ArrayList<>();
-        for (Pattern p : dataset) {
-            if (p.getClase() == 0) {
-                Dp.add(p);
-            } else {
-                Dn.add(p);
-            }
-
+        // Calculate, in one pass over Dp and Dn, the counts for the supportRatio and the bit strings of each item.
+        for (int i = 0; i < dataset.size(); i++) {
+            Pattern p = dataset.get(i);
             for (Item it : p.getItems()) {
-                if (!counts.containsKey(it)) {
-                    counts.put(it, new Par());
+                Par count = counts.get(it);
+                if (count == null) {
+                    count = new Par();
+                    counts.put(it, count);
+                    bitStringsPos.put(it, new long[numWords]);
+                    bitStringsNeg.put(it, new long[numWords]);
                 }
 
                 if (p.getClase() == 0) {
-                    counts.get(it).D1++;
+                    count.D1++;
+                    bitStringsPos.get(it)[i >>> 6] |= 1L << i;
                 } else {
-                    counts.get(it).D2++;
+                    count.D2++;
+                    bitStringsNeg.get(it)[i >>> 6] |= 1L << i;
                 }
             }
         }
@@ -169,23 +207,6 @@ public class DGCPTree extends Model {
                 suppRatio = ((Integer) next.getValue().D1).doubleValue() / ((Integer) next.getValue().D2).doubleValue();
             }
             supportRatio.put(next.getKey(), suppRatio);
-            bitStringsPos.put(next.getKey(), createZeroString(dataset.size()));
-            bitStringsNeg.put(next.getKey(), createZeroString(dataset.size()));
-        }
-
-        // Calculates the bit string of each item. 
-        for (int i = 0; i < dataset.size(); i++) {
-            for (Item it : dataset.get(i).getItems()) {
-                if (dataset.get(i).getClase() == 0) {
-                    char[] charArray = bitStringsPos.get(it).toCharArray();
-                    charArray[i] = '1';
-                    bitStringsPos.put(it, String.valueOf(charArray));
-                } else {
-                    char[] charArray = bitStringsNeg.get(it).toCharArray();
-                    charArray[i] = '1';
-                    bitStringsNeg.put(it, String.valueOf(charArray));
-                }
-            }
         }
 
         // Calculate the BSC-Tree of each item and add it to an auxiliar node
@@ -250,58 +271,93 @@ public class DGCPTree extends Model {
      * @param prefix A pattern prefix.
      */
     public void mineGrowingTree(Node T, int minSupport, Pattern prefix) {
-        // for each child node of T
-        for (int i = 0; i < T.getChilds().size(); i++) {
-            Node N = T.getChild(i);
-            Pattern prefixN = prefix.clone();
-            prefixN.add(N.getItem());
-            int suppn = support(prefixN,true);
-            if (N.getPcArrPos().getCounts() >= minSupport) {
-                // Now, for each right sibling of N, S do
-                for (int j = i + 1; j < T.getChilds().size(); j++) {
-                    Node S = T.getChild(j);
+        this.patterns.addAll(growTree(T, minSupport, prefix));
+    }
+
+    /**
+     * Grows and mines the subtree {@code T}. Each child node of {@code T} is
+     * only combined with its right siblings, which are just read, and the
+     * combinations are added as children of the node itself, so the children
+     * are grown independently. If {@code parallelBranches} is set, each child
+     * is grown as a fork-join task. The SJEPs of each child are returned in
+     * their own list and the lists are joined in the order of the children, so
+     * the result is the same than the sequential one.
+     *
+     * @param T A subtree of the DGCP- Tree
+     * @param minSupport The minimum support threshold, in COUNTS.
+     * @param prefix A pattern prefix.
+     * @return The SJEPs found in the subtree
+     */
+    private ArrayList<Pattern> growTree(Node T, int minSupport, Pattern prefix) {
+        ArrayList<Pattern> result = new ArrayList<>();
+        if (parallelBranches && T.numChilds() > 1) {
+            ArrayList<ForkJoinTask<ArrayList<Pattern>>> branches = new ArrayList<>();
+            for (int i = 0; i < T.numChilds(); i++) {
+                final int child = i;
+                branches.add(ForkJoinTask.adapt(() -> growChild(T, child, minSupport, prefix)));
+            }
+            ForkJoinTask.invokeAll(branches);
+            for (ForkJoinTask<ArrayList<Pattern>> branch : branches) {
+                result.addAll(branch.join());
+            }
+        } else {
+            // for each child node of T
+            for (int i = 0; i < T.numChilds(); i++) {
+                result.addAll(growChild(T, i, minSupport, prefix));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Grows the child {@code i} of {@code T} with its right siblings and mines
+     * its subtree.
+     *
+     * @param T A subtree of the DGCP- Tree
+     * @param i The position of the child
+     * @param minSupport The minimum support threshold, in COUNTS.
+     * @param prefix The pattern prefix of {@code T}.
+     * @return The SJEPs found in the subtree of the child
+     */
+    private ArrayList<Pattern> growChild(Node T, int i, int minSupport, Pattern prefix) {
+        ArrayList<Pattern> result = new ArrayList<>();
+        Node N = T.getChild(i);
+        Pattern prefixN = prefix.clone();
+        prefixN.add(N.getItem());
+        if (N.getPcArrPos().getCounts() >= minSupport) {
+            // Now, for each right sibling of N, S do
+            for (int j = i + 1; j < T.numChilds(); j++) {
+                Node S = T.getChild(j);
+                //if S.item not in coverDn(N.item) and N.item not in coverDn(S.item)
+                if (!coverDn.get(N.getItem()).contains(S.getItem())
+                        && !coverDn.get(S.getItem()).contains(N.getItem())) {
                     Pattern prefixNS = prefixN.clone();
                     prefixNS.add(S.getItem());
-                    //if S.item not in coverDn(N.item) and N.item not in coverDn(S.item)
-                    if (!coverDn.get(N.getItem()).contains(S.getItem())
-                            && !coverDn.get(S.getItem()).contains(N.getItem())
-                            && support(prefixNS, true) >= minSupport && support(prefixNS, false) < minSupport) {
+                    int suppNeg;
+                    if (support(prefixNS, true) >= minSupport && (suppNeg = support(prefixNS, false)) < minSupport) {
                         // The pattern is a possible JEP. Check if it is a JEP
-                        if (support(prefixNS, false) == 0) {
+                        if (suppNeg == 0) {
                             // Is a SJEP !!
-                            this.patterns.add(prefixNS);
+                            result.add(prefixNS);
                         } else {
                             // clone S in S''
                             Node S_Prime = S.clone();
                             // modify the path codes by the and operation of BSC-Tree
                             S_Prime.setPcArrPos(N.getPcArrPos().And(this.pathCodeDp.get(S.getItem())));
                             S_Prime.setPcArrNeg(N.getPcArrNeg().And(this.pathCodeDn.get(S.getItem())));
-                            // add S' into T as a child node of N. (Obeying the order)
+                            // add S' into T as a child node of N.
                             N.addChild(S_Prime);
-                            N.sortChilds(supportRatio);
                         }
                     }
                 }
-                // Perfoms the recursive call
-                mineGrowingTree(N, minSupport, prefixN);
             }
-            // Prune subtree N from T
-            N = null;
-        }
-    }
-
-    /**
-     * Generates a string of length {@code length} to be used to represent the
-     * bit string representation.
-     *
-     * @param length
-     * @return
-     */
-    private String createZeroString(int length) {
-        String result = "";
-        for (int i = 0; i < length; i++) {
-            result += "0";
+            // Sort the new children obeying the order
+            N.sortChilds(supportRatio);
+            // Perfoms the recursive call
+            result.addAll(growTree(N, minSupport, prefixN));
         }
+        // Prune subtree N from T
+        N.setChilds(new ArrayList<>());
         return result;
     }
 
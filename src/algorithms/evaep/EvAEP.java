@@ -23,29 +23,37 @@ import java.io.FileNotFoundException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class EvAEP extends Model {
 
-    private static int seed;                // Seed for the random generator
-    private static String nombre_alg;       // Algorithm Name
-
-    private static String input_file_tra;   // Input mandatory file training
-    private static String input_file_ref;   // Input mandatory file training
-    private static String input_file_tst;   // Input mandatory file test
-    private static String output_file_tra;  // Output mandatory file training
-    private static String output_file_tst;  // Output mandatory file test
-    private static String rule_file;        // Auxiliary output file for rules
-    private static String seg_file;         // Auxiliary output file for tracking
-    private static String qmeasure_file;    // Output quality measure file
-
-    // Structures
-    static InstanceSet Data;
-    static TableVar Variables;     // Set of variables of the dataset and their characteristics
-    static TableDat Examples;      // Set of instances of the dataset
-    static Genetic AG;             // Genetic Algorithm
+    private int seed;                // Seed for the random generator
+    private String nombre_alg;       // Algorithm Name
+
+    private String input_file_tra;   // Input mandatory file training
+    private String input_file_ref;   // Input mandatory file training
+    private String input_file_tst;   // Input mandatory file test
+    private String output_file_tra;  // Output mandatory file training
+    private String output_file_tst;  // Output mandatory file test
+    private String rule_file;        // Auxiliary output file for rules
+    private String seg_file;         // Auxiliary output file for tracking
+    private String qmeasure_file;    // Output quality measure file
+
+    // Structures of the run
+    private transient InstanceSet Data;
+    private transient TableVar Variables;     // Set of variables of the dataset and their characteristics
+    private transient TableDat Examples;      // Set of instances of the dataset
+    private transient Genetic AG;             // Genetic Algorithm
+    private transient long cache_lookups;     // Lookups in the evaluation caches of the run
+    private transient long cache_hits;        // Evaluations taken from the caches of the run
 
     /**
      * <p>
@@ -53,7 +61,7 @@ public class EvAEP extends Model {
      * </p>
      * @param s                 String of the output files
      */
-    private static void GetOutputFiles(StringTokenizer s) {
+    private void GetOutputFiles(StringTokenizer s) {
         String val   = s.nextToken();
         
         output_file_tra = s.nextToken().replace('"',' ').trim();
@@ -69,7 +77,7 @@ public class EvAEP extends Model {
      * </p>
      * @param s                 String of the input files
      */
-    private static void GetInputFiles(StringTokenizer s) {
+    private void GetInputFiles(StringTokenizer s) {
         String val   = s.nextToken(); // skip "="
         input_file_tra = s.nextToken().replace('"',' ').trim();
         input_file_ref = s.nextToken().replace('"',' ').trim();
@@ -82,7 +90,7 @@ public class EvAEP extends Model {
      * </p>
      * @param nFile      File of parameters
      */
-    public static void ReadParameters(HashMap<String, String> params) {
+    public void ReadParameters(HashMap<String, String> params) {
         nombre_alg = "NMEEFSD";
         seed = Integer.parseInt(params.get("Seed"));
         AG.setRulesRep(params.get("Rule Representation"));
@@ -94,6 +102,18 @@ public class EvAEP extends Model {
         AG.setFitness("MEDGEO");
         AG.setInitialisation("BIASED");
         AG.setRoundRobin(false);
+        if (params.containsKey("Number of Islands"))
+            AG.setNIslands(Integer.parseInt(params.get("Number of Islands")));
+        if (params.containsKey("Migration Interval"))
+            AG.setMigrationInterval(Integer.parseInt(params.get("Migration Interval")));
+        if (params.containsKey("Number of Migrants"))
+            AG.setNMigrants(Integer.parseInt(params.get("Number of Migrants")));
+        if (params.containsKey("Evaluation Cache Size"))
+            AG.setCacheSize(Integer.parseInt(params.get("Evaluation Cache Size")));
+        if (params.containsKey("Initial Sample Size"))
+            AG.setSampleSize(Integer.parseInt(params.get("Initial Sample Size")));
+        if (params.containsKey("Sample Doubling Interval"))
+            AG.setSampleInterval(Integer.parseInt(params.get("Sample Doubling Interval")));
     }
 
     /**
@@ -101,7 +121,7 @@ public class EvAEP extends Model {
     * Read the dataset and stores the values
     * </p>
     */
-    public static void CaptureDatasetTraining (InstanceSet training) throws IOException   {
+    public void CaptureDatasetTraining (InstanceSet training) throws IOException   {
 
         try {
 
@@ -140,7 +160,7 @@ public class EvAEP extends Model {
         System.out.println ( "Output variable: " + Data.getAttributeDefinitions().getOutputAttribute(0).getName());
 
         // Creates the space for the variables and load the values.
-        Variables.Load (Data.getAttributeDefinitions().getInputNumAttributes());
+        Variables.Load (Data.getAttributeDefinitions());
 
         // Setting and file writing of fuzzy sets characteristics for continuous variables
         String nombreF = seg_file;
@@ -149,6 +169,10 @@ public class EvAEP extends Model {
         // Creates the space for the examples and load the values
         Examples.Load(Data,Variables);
 
+        // Precomputes the intervals of the examples for the fuzzy sets
+        Examples.InitIntervals(Variables);
+        Examples.InitExampleSets(Variables);
+
         } catch (Exception e) {
             System.out.println("DBG: Exception in readSet");
             e.printStackTrace();
@@ -161,7 +185,7 @@ public class EvAEP extends Model {
     * Read the dataset and stores the values
     * </p>
     */
-    public static void CaptureDatasetTest () throws IOException   {
+    public void CaptureDatasetTest () throws IOException   {
 
         try {
 
@@ -201,7 +225,9 @@ public class EvAEP extends Model {
         System.out.println ( "Output variable: " + Attributes.getOutputAttribute(0).getName());
 
         // Creates the space for the variables and load the values.
-        Variables.Load (Attributes.getInputNumAttributes());
+        InstanceAttributes Atributos = new InstanceAttributes();
+        Atributos.copyStaticAttributes();
+        Variables.Load (Atributos);
 
         // Setting and file writing of fuzzy sets characteristics for continuous variables
         String nombreF = seg_file;
@@ -210,6 +236,10 @@ public class EvAEP extends Model {
         // Creates the space for the examples and load the values
         Examples.Load(Data,Variables);
 
+        // Precomputes the intervals of the examples for the fuzzy sets
+        Examples.InitIntervals(Variables);
+        Examples.InitExampleSets(Variables);
+
         } catch (Exception e) {
             System.out.println("DBG: Exception in readSet");
             e.printStackTrace();
@@ -225,7 +255,7 @@ public class EvAEP extends Model {
     * @param pop                Population with final emerging patterns
     * @param nrules             Number of rules generated
     */
-    public static void CalculateOutDataCAN (String filename, int tipo, Population pop, int[] classFinal, int nrules) {
+    public void CalculateOutDataCAN (String filename, int tipo, Population pop, int[] classFinal, int nrules) {
 
         float pertenencia, pert;
         float disparo = 1;
@@ -350,7 +380,7 @@ public class EvAEP extends Model {
     * @param nrules             Number of rules generated
     */
     /*
-    public static void CalculateOutDataAUC (String filename, Population pop, int[] classFinal, int nrules) {
+    public void CalculateOutDataAUC (String filename, Population pop, int[] classFinal, int nrules) {
 
         float pertenencia, pert;
         float disparo = 1;
@@ -449,7 +479,7 @@ public class EvAEP extends Model {
     * @param pop                Population with final emerging patterns
     * @param nrules             Number of rules generated
     */
-    public static void CalculateQMeasures (Population pop, int nrules, String filename, int[] classFinal) {
+    public void CalculateQMeasures (Population pop, int nrules, String filename, int[] classFinal) {
 
         int ejCompAntFuzzy=0;                // Number of compatible examples with the antecedent of any class - fuzzy version --- unused
         int ejAntCrisp=0;                // Number of compatible examples with the antecedent of any class - crisp version
@@ -756,7 +786,7 @@ public class EvAEP extends Model {
     * </p>
     * @param filename           Output file
     */
-    public static void WriteOutDataset (String filename) {
+    public void WriteOutDataset (String filename) {
         String contents;
         contents = Data.getHeader();
         contents+= Attributes.getInputHeader() + "\n";
@@ -771,7 +801,7 @@ public class EvAEP extends Model {
     * </p>
     * @param filename           Tracking file
     */
-    public static void WriteSegDataset (String filename) {
+    public void WriteSegDataset (String filename) {
         String contents="\n";
         contents+= "--------------------------------------------\n";
         contents+= "|               Dataset Echo               |\n";
@@ -790,7 +820,7 @@ public class EvAEP extends Model {
      * @param pob                       Final population with EP
      * @param nrules                    Number of rules
      */
-    public static void WriteRules (Population pop, int nrules, int[] classFinal) {
+    public void WriteRules (Population pop, int nrules, int[] classFinal) {
 
           String contents;
 
@@ -870,10 +900,7 @@ public class EvAEP extends Model {
     @Override
     public void learn(InstanceSet training, HashMap<String, String> params){
         
-        String contents;                    // String for the file contents
         String NameRule, NameMeasure;       // String containing de original names for the rules and measures files
-        boolean terminar = false;           // Indicates no more repetition for the rule generation of diferent classes
-        int NumRulesGenerated = 0;          // Number of rules generated
         
         int clase;                          // Store the value of the class to analyse
         
@@ -903,7 +930,7 @@ public class EvAEP extends Model {
 
         // Screen output of same parameters
         System.out.println ("\nSeed: " + seed);    // Random Seed
-        System.out.println ("\nOutput variable: " + Attributes.getOutputAttribute(0).getName() ); // Output variable
+        System.out.println ("\nOutput variable: " + Data.getAttributeDefinitions().getOutputAttribute(0).getName() ); // Output variable
 
         // Initialize measure file
         /*String cab_measure_file = "";
@@ -912,10 +939,10 @@ public class EvAEP extends Model {
         cab_measure_file+= "--------------------------------------------\n\n";
         cab_measure_file+= "\n\nCLASS\tFITNESS";*/
         
-        // Initialization of random generator seed. Done after load param values
-        if (seed!=0) Randomize.setSeed (seed);  
-        Population popFinal = new Population(100, Variables.getNVars(), Examples.getNEx(), AG.getRulesRep(), Variables, AG.getTrials());
-        int classFinal[] = new int[100];
+        // Initialization of random generator of this run. Done after load param values
+        cache_lookups = 0;
+        cache_hits = 0;
+        MTwister generador = new MTwister(seed!=0 ? seed : System.nanoTime());
         
         long t_ini = System.currentTimeMillis();
         
@@ -924,11 +951,86 @@ public class EvAEP extends Model {
             //ONE VERSUS ALL STUDY
             //--------------------
             System.out.println("One Vs. All STUDY");
-            //Algorithm is executed for all classes
-            for(clase=0; clase< Attributes.getOutputAttribute(0).getNumNominalValues(); clase++){
-                
+            //Algorithm is executed for all classes. Each class is an independent
+            //task with its own random generator, seeded in class order, so the
+            //rules do not depend on the number of threads
+            int nclases = Data.getAttributeDefinitions().getOutputAttribute(0).getNumNominalValues();
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(nclases, Runtime.getRuntime().availableProcessors()));
+            List<Future<ArrayList<Pattern>>> tareas = new ArrayList<Future<ArrayList<Pattern>>>();
+            for(clase=0; clase<nclases; clase++){
+                final int clas = clase;
+                final MTwister gen = new MTwister(generador.genrand_int31());
+                tareas.add(pool.submit(new Callable<ArrayList<Pattern>>() {
+                    @Override
+                    public ArrayList<Pattern> call() {
+                        return GenerateRulesClass(clas, gen);
+                    }
+                }));
+            }
+
+            // Merges the rules in class order
+            try {
+                for (Future<ArrayList<Pattern>> tarea : tareas) {
+                    this.patterns.addAll(tarea.get());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while mining the classes", ex);
+            } catch (ExecutionException ex) {
+                throw new RuntimeException("Error in the mining of the classes", ex);
+            } finally {
+                pool.shutdown();
+            }
+        } 
+        
+        System.out.println("Algorithm terminated\n\n");
+        if (cache_lookups > 0)
+            System.out.println("Evaluation cache: " + cache_hits + " hits in " + cache_lookups
+                    + " lookups (" + (100d * cache_hits / cache_lookups) + "%)");
+
+        //CALCULAR FICHERO .TRA
+        //CalculateOutDataCAN(output_file_tra,0,popFinal,classFinal,NumRulesGenerated);
+        //LEER FICHERO .TST
+//        CaptureDatasetTest();
+        //CALCULAR FICHERO .TST
+        //CalculateOutDataCAN(output_file_tst,1,popFinal,classFinal,NumRulesGenerated);
+        //CALCULAR FICHERO DE MEDIDAS
+        //CalculateQMeasures(popFinal,NumRulesGenerated,qmeasure_file,classFinal);
+        //ESCRIBIR LAS REGLAS
+        //WriteRules(popFinal, NumRulesGenerated, classFinal);
+        
+        long t_end = System.currentTimeMillis();
+        
+        
+        System.out.println("EXECUTION TIME: " + (t_end - t_ini) / 1000d + " seconds.");
+  }
+
+    /**
+     * <p>
+     * Generates the rules for a class (one versus all). The covering loop works
+     * on its own copies of the variables, the examples (with their coverage
+     * flags) and the genetic algorithm, so several classes can be processed
+     * concurrently
+     * </p>
+     * @param clase             Target class
+     * @param generador         Random generator for the class
+     * @return                  Rules generated for the class
+     */
+    private ArrayList<Pattern> GenerateRulesClass (int clase, MTwister generador) {
+
+        String contents;                    // String for the file contents
+        boolean terminar = false;           // Indicates no more repetition for the rule generation of diferent classes
+        int NumRulesGenerated = 0;          // Number of rules generated
+        ArrayList<Pattern> reglas = new ArrayList<Pattern>();
+
+        TableVar Variables = new TableVar(this.Variables);
+        TableDat Examples = new TableDat(this.Examples);
+        Genetic AG = new Genetic(this.AG);
+
+        Randomize.setGenerator(generador);
+        try {
                 Variables.setNumClassObj(clase);
-                Variables.setNameClassObj(Attributes.getOutputAttribute(0).getNominalValue(clase));
+                Variables.setNameClassObj(Data.getAttributeDefinitions().getOutputAttribute(0).getNominalValue(clase));
                 System.out.println ("Generate rules for class: "+clase);
 
                 // Set all the examples as not covered
@@ -976,28 +1078,12 @@ public class EvAEP extends Model {
                        // File.AddtoFile(seg_file, "#"+NumRulesGenerated+":\n");
                        
                        // Here is where the translation of CAN or DNF rules to Pattern is done              
-                        this.patterns.add(toPattern(result));
+                        reglas.add(toPattern(result, clase));
                         
                        
                         result.Print("");
                         result.getMeasures().Print("", AG);
                         
-                        // Duplicate the size of the result population if neccesary
-                        /*if(NumRulesGenerated==popFinal.getNumIndiv()-1){
-                            Population aux_popFinal = new Population(popFinal.getNumIndiv()*2, Variables.getNVars(), Examples.getNEx(), AG.getRulesRep(), Variables, AG.getTrials());
-                            int[] aux_classFinal = new int[classFinal.length*2];
-                            for(int i=0; i<classFinal.length; i++)
-                                aux_classFinal[i] = classFinal[i];
-                            aux_popFinal.CopyPopulation(popFinal, Examples.getNEx());
-                            popFinal = new Population(popFinal.getNumIndiv()*2, Variables.getNVars(), Examples.getNEx(), AG.getRulesRep(), Variables, AG.getTrials());
-                            popFinal.CopyPopulation(aux_popFinal, Examples.getNEx());
-                            classFinal = new int[aux_classFinal.length];
-                            for(int i=0; i<classFinal.length; i++)
-                                classFinal[i] = aux_classFinal[i];
-                        }
-                        popFinal.CopyIndiv(NumRulesGenerated, Examples.getNEx(), result);
-                        classFinal[NumRulesGenerated] = clase;
-                        */
                         NumRulesGenerated++; 
 
                         //Update Examples Structure
@@ -1016,27 +1102,26 @@ public class EvAEP extends Model {
                     rulesClass = true;
 
                 } while (terminar==false);            
-            }
-        } 
-        
-        System.out.println("Algorithm terminated\n\n");
+        } finally {
+            Randomize.setGenerator(null);
+            if (AG.getCache() != null)
+                addCacheStats(AG.getCache());
+        }
 
-        //CALCULAR FICHERO .TRA
-        //CalculateOutDataCAN(output_file_tra,0,popFinal,classFinal,NumRulesGenerated);
-        //LEER FICHERO .TST
-//        CaptureDatasetTest();
-        //CALCULAR FICHERO .TST
-        //CalculateOutDataCAN(output_file_tst,1,popFinal,classFinal,NumRulesGenerated);
-        //CALCULAR FICHERO DE MEDIDAS
-        //CalculateQMeasures(popFinal,NumRulesGenerated,qmeasure_file,classFinal);
-        //ESCRIBIR LAS REGLAS
-        //WriteRules(popFinal, NumRulesGenerated, classFinal);
-        
-        long t_end = System.currentTimeMillis();
-        
-        
-        System.out.println("EXECUTION TIME: " + (t_end - t_ini) / 1000d + " seconds.");
-  }
+        return reglas;
+    }
+
+    /**
+     * <p>
+     * Adds the lookups and hits of the evaluation cache of a class to the
+     * statistics of the run
+     * </p>
+     * @param cache             Evaluation cache of the class
+     */
+    private synchronized void addCacheStats (EvalCache cache) {
+        cache_lookups += cache.getLookups();
+        cache_hits += cache.getHits();
+    }
 
     
   @Override
@@ -1069,9 +1154,10 @@ public class EvAEP extends Model {
   /**
    * Convert a Rule of class Individual into a Pattern of the framework
    * @param ind
+   * @param clase the class of the rule
    * @return 
    */
-  public Pattern toPattern(Individual ind){
+  public Pattern toPattern(Individual ind, int clase){
       ArrayList<Item> items = new ArrayList<>();
       if(AG.getRulesRep().equalsIgnoreCase("CAN")){
           // CAN RULE
@@ -1083,7 +1169,7 @@ public class EvAEP extends Model {
                   if(crom.getCromElem(i) < Variables.getNLabelVar(i)){
                       // Variable takes part in the rule, add it to the Pattern
                       int j = crom.getCromElem(i);
-                      NominalItem it = new NominalItem(Attributes.getAttribute(i).getName(), Attributes.getInputAttribute(i).getNominalValue(j));
+                      NominalItem it = new NominalItem(Data.getAttributeDefinitions().getInputAttribute(i).getName(), Data.getAttributeDefinitions().getInputAttribute(i).getNominalValue(j));
                       items.add(it);
                   }
               } else {
@@ -1092,7 +1178,7 @@ public class EvAEP extends Model {
                       framework.utils.Fuzzy fuz = new framework.utils.Fuzzy();
                       int j = crom.getCromElem(i);
                       fuz.setVal(Variables.getX0(i, j), Variables.getX1(i, j), Variables.getX3(i, j), 1);
-                      FuzzyItem it = new FuzzyItem(Attributes.getAttribute(i).getName(), fuz, "Label " + j);
+                      FuzzyItem it = new FuzzyItem(Data.getAttributeDefinitions().getInputAttribute(i).getName(), fuz, "Label " + j);
                       items.add(it);
                   }
               }
@@ -1101,7 +1187,7 @@ public class EvAEP extends Model {
           // DNF RULE
       }
       
-      return new Pattern(items, Variables.getNumClassObj());
+      return new Pattern(items, clase);
   }
 
     
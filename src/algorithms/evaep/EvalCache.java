@@ -0,0 +1,250 @@
+/**
+ * <p>
+ * @version 1.0
+ * @since JDK1.5
+ * </p>
+ */
+
+package algorithms.evaep;
+
+import java.util.Arrays;
+
+public class EvalCache {
+    /**
+     * <p>
+     * Bounded cache of evaluations of the genetic algorithm. The chromosomes
+     * are identified by a canonical encoding (the genes of the variables not
+     * taking part in the rule are ignored), and for each one the quality
+     * measures and the covered examples are stored. The only measure that
+     * depends on the examples already covered by previous rules is NSup, so it
+     * must be recomputed when an evaluation is taken from the cache. The least
+     * recently used entries are removed when the cache is full
+     * </p>
+     * <p>
+     * The entries are kept in preallocated slots: a hash table with chaining
+     * and a doubly linked list in access order, both stored as arrays of
+     * indices. The arrays of a slot are allocated the first time it is used
+     * and reused by the entries that replace it, so once the cache is full
+     * neither the lookups nor the insertions allocate memory
+     * </p>
+     */
+
+    private final int capacidad;
+    private int usados = 0;          // Number of slots in use
+
+    private final int[] cubetas;     // First slot of each bucket of the hash table, or -1
+    private final int[] siguiente;   // Next slot of the same bucket, or -1
+    private final int[] hashes;      // Hash of the key of each slot
+    private final long[][] claves;   // Key of each slot
+    private final QualityMeasures[] medidas;
+    private final long[][] cubres;
+    private final int[] numVarNoInterv;
+
+    private final int[] anterior;    // Previous (more recently used) slot, or -1
+    private final int[] posterior;   // Next (less recently used) slot, or -1
+    private int masReciente = -1;
+    private int menosReciente = -1;
+
+    private long consultas = 0;      // Number of lookups
+    private long aciertos = 0;       // Number of lookups found in the cache
+
+    /**
+     * <p>
+     * Creates a cache with the indicated maximum number of entries
+     * </p>
+     * @param capacidad         Maximum number of entries
+     */
+    public EvalCache(int capacidad) {
+        this.capacidad = capacidad;
+        cubetas = new int[Integer.highestOneBit(Math.max(1, capacidad) * 2 - 1) << 1];
+        Arrays.fill(cubetas, -1);
+        siguiente = new int[capacidad];
+        hashes = new int[capacidad];
+        claves = new long[capacidad][];
+        medidas = new QualityMeasures[capacidad];
+        cubres = new long[capacidad][];
+        numVarNoInterv = new int[capacidad];
+        anterior = new int[capacidad];
+        posterior = new int[capacidad];
+    }
+
+    /**
+     * <p>
+     * Hash of a key, with its bits mixed so the low ones select the bucket
+     * </p>
+     */
+    private static int hash(long[] clave) {
+        int h = Arrays.hashCode(clave);
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * <p>
+     * Returns the slot of the key, or -1 if it is not in the cache
+     * </p>
+     */
+    private int find(long[] clave, int h) {
+        for (int s = cubetas[h & (cubetas.length - 1)]; s != -1; s = siguiente[s]) {
+            if (hashes[s] == h && Arrays.equals(claves[s], clave))
+                return s;
+        }
+        return -1;
+    }
+
+    /**
+     * <p>
+     * Removes a slot from the list in access order
+     * </p>
+     */
+    private void unlink(int s) {
+        if (anterior[s] != -1)
+            posterior[anterior[s]] = posterior[s];
+        else
+            masReciente = posterior[s];
+        if (posterior[s] != -1)
+            anterior[posterior[s]] = anterior[s];
+        else
+            menosReciente = anterior[s];
+    }
+
+    /**
+     * <p>
+     * Puts a slot first in the list in access order
+     * </p>
+     */
+    private void linkFirst(int s) {
+        anterior[s] = -1;
+        posterior[s] = masReciente;
+        if (masReciente != -1)
+            anterior[masReciente] = s;
+        masReciente = s;
+        if (menosReciente == -1)
+            menosReciente = s;
+    }
+
+    /**
+     * <p>
+     * Removes a slot from its bucket of the hash table
+     * </p>
+     */
+    private void removeFromBucket(int s) {
+        int b = hashes[s] & (cubetas.length - 1);
+        if (cubetas[b] == s) {
+            cubetas[b] = siguiente[s];
+            return;
+        }
+        for (int p = cubetas[b]; p != -1; p = siguiente[p]) {
+            if (siguiente[p] == s) {
+                siguiente[p] = siguiente[s];
+                return;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Looks for the evaluation of the chromosome of the individual. If it is
+     * found, the measures and the covered examples are copied in the
+     * individual and NSup is recomputed with the current covered examples
+     * </p>
+     * @param indiv             Individual to evaluate
+     * @param AG                Genetic algorithm
+     * @param Variables         Variables structure
+     * @param Examples          Examples structure
+     * @return                  True if the evaluation was found in the cache
+     */
+    public boolean get(Individual indiv, Genetic AG, TableVar Variables, TableDat Examples) {
+
+        long[] clave = AG.getKeyBuffer(indiv, Variables);
+        int h = hash(clave);
+        int noInterv;
+        synchronized (this) {
+            consultas++;
+            int s = find(clave, h);
+            if (s == -1)
+                return false;
+            aciertos++;
+            unlink(s);
+            linkFirst(s);
+            // The slot can be reused by other threads, so it is copied here
+            indiv.getMeasures().Copy(medidas[s]);
+            System.arraycopy(cubres[s], 0, indiv.cubre, 0, cubres[s].length);
+            noInterv = numVarNoInterv[s];
+        }
+        indiv.evalNSup(AG, Variables, Examples, noInterv);
+        return true;
+
+    }
+
+    /**
+     * <p>
+     * Stores the evaluation of an individual. When the cache is full, the
+     * slot of the least recently used entry is reused
+     * </p>
+     * @param indiv             Individual already evaluated
+     * @param AG                Genetic algorithm
+     * @param Variables         Variables structure
+     */
+    public void put(Individual indiv, Genetic AG, TableVar Variables) {
+
+        if (capacidad == 0)
+            return;
+        long[] clave = AG.getKeyBuffer(indiv, Variables);
+        int h = hash(clave);
+        int noInterv = indiv.getNumVarNoInterv(Variables);
+        synchronized (this) {
+            int s = find(clave, h);
+            if (s != -1) {
+                // Stored meanwhile by another island
+                unlink(s);
+            }
+            else {
+                if (usados < capacidad) {
+                    s = usados++;
+                }
+                else {
+                    s = menosReciente;
+                    unlink(s);
+                    removeFromBucket(s);
+                }
+                if (claves[s] == null || claves[s].length != clave.length)
+                    claves[s] = new long[clave.length];
+                System.arraycopy(clave, 0, claves[s], 0, clave.length);
+                hashes[s] = h;
+                int b = h & (cubetas.length - 1);
+                siguiente[s] = cubetas[b];
+                cubetas[b] = s;
+            }
+            linkFirst(s);
+            if (medidas[s] == null)
+                medidas[s] = new QualityMeasures();
+            medidas[s].Copy(indiv.getMeasures());
+            if (cubres[s] == null || cubres[s].length != indiv.cubre.length)
+                cubres[s] = new long[indiv.cubre.length];
+            System.arraycopy(indiv.cubre, 0, cubres[s], 0, indiv.cubre.length);
+            numVarNoInterv[s] = noInterv;
+        }
+
+    }
+
+    /**
+     * <p>
+     * Returns the number of lookups performed in the cache
+     * </p>
+     * @return                  Number of lookups
+     */
+    public synchronized long getLookups() {
+        return consultas;
+    }
+
+    /**
+     * <p>
+     * Returns the number of lookups found in the cache
+     * </p>
+     * @return                  Number of hits
+     */
+    public synchronized long getHits() {
+        return aciertos;
+    }
+
+}
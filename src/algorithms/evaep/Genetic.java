@@ -9,6 +9,10 @@ package algorithms.evaep;
 
 import org.core.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class Genetic {
 
@@ -20,7 +24,7 @@ public class Genetic {
      */
 
     private Population poblac;     // Main Population
-    private Population auxiliar;   // Auxiliar population
+    private Population auxiliar;   // Auxiliar population, swapped with poblac in each generation
 
     private int long_poblacion;   // Number of individuals of the population
     private int n_eval;           // Number of evaluations per ejecution
@@ -37,6 +41,57 @@ public class Genetic {
     private boolean unballanced = true;
     private boolean roundrobin = false;
 
+    private int n_islands = 1;          // Number of islands (subpopulations evolved in parallel)
+    private int migration_interval = 10; // Number of generations between migrations
+    private int n_migrants = 2;         // Number of individuals sent to the next island in each migration
+    private MTwister generador;         // Random generator of the island
+
+    private int cache_size = 1000;      // Maximum number of evaluations stored in the cache (0 to disable it)
+    private EvalCache cache;            // Cache of evaluations of the chromosomes
+    private long[] clave_cache;         // Buffer for the keys of the chromosomes looked up in the cache
+
+    private int sample_size = 0;        // Size of the initial sample of examples for the evaluation (0 to use all of them)
+    private int sample_interval = 10;   // Number of generations between doublings of the sample
+    private int tam_muestra;            // Size of the current sample
+    private TableDat muestra;           // Current sample of examples, null when all of them are used
+    private int[][] orden_clase;        // Random order of the examples of each class used to draw the samples
+    private long coste_muestra;         // Examples evaluated on samples not yet counted in Trials
+    private EvalCache cache_muestra;    // Cache of evaluations on the current sample
+
+    /**
+     * <p>
+     * Creates a new instance of the genetic algorithm
+     * </p>
+     */
+    public Genetic() {
+    }
+
+    /**
+     * <p>
+     * Creates a genetic algorithm with the same parameters as other. The
+     * populations are not copied
+     * </p>
+     *
+     * @param ag Genetic algorithm to copy the parameters from
+     */
+    public Genetic(Genetic ag) {
+        long_poblacion = ag.long_poblacion;
+        n_eval = ag.n_eval;
+        prob_cruce = ag.prob_cruce;
+        prob_mutacion = ag.prob_mutacion;
+        fitness = ag.fitness;
+        RulesRep = ag.RulesRep;
+        Initialisation = ag.Initialisation;
+        unballanced = ag.unballanced;
+        roundrobin = ag.roundrobin;
+        n_islands = ag.n_islands;
+        migration_interval = ag.migration_interval;
+        n_migrants = ag.n_migrants;
+        cache_size = ag.cache_size;
+        sample_size = ag.sample_size;
+        sample_interval = ag.sample_interval;
+    }
+
     /**
      * <p>
      * Sets the lenght of the population
@@ -213,6 +268,195 @@ public class Genetic {
         fitness = value;
     }
 
+    /**
+     * <p>
+     * Gets the number of islands of the genetic algorithm
+     * </p>
+     *
+     * @return Number of islands
+     */
+    public int getNIslands() {
+        return n_islands;
+    }
+
+    /**
+     * <p>
+     * Sets the number of islands of the genetic algorithm. With more than one
+     * island, the subpopulations are evolved in parallel
+     * </p>
+     *
+     * @param value Number of islands
+     */
+    public void setNIslands(int value) {
+        n_islands = value;
+    }
+
+    /**
+     * <p>
+     * Gets the number of generations between migrations
+     * </p>
+     *
+     * @return Number of generations
+     */
+    public int getMigrationInterval() {
+        return migration_interval;
+    }
+
+    /**
+     * <p>
+     * Sets the number of generations between migrations
+     * </p>
+     *
+     * @param value Number of generations
+     */
+    public void setMigrationInterval(int value) {
+        migration_interval = value;
+    }
+
+    /**
+     * <p>
+     * Gets the number of individuals migrated from each island
+     * </p>
+     *
+     * @return Number of migrants
+     */
+    public int getNMigrants() {
+        return n_migrants;
+    }
+
+    /**
+     * <p>
+     * Sets the number of individuals migrated from each island
+     * </p>
+     *
+     * @param value Number of migrants
+     */
+    public void setNMigrants(int value) {
+        n_migrants = value;
+    }
+
+    /**
+     * <p>
+     * Gets the maximum number of evaluations stored in the cache
+     * </p>
+     *
+     * @return Size of the evaluation cache
+     */
+    public int getCacheSize() {
+        return cache_size;
+    }
+
+    /**
+     * <p>
+     * Sets the maximum number of evaluations stored in the cache. A value of
+     * 0 disables the cache
+     * </p>
+     *
+     * @param value Size of the evaluation cache
+     */
+    public void setCacheSize(int value) {
+        cache_size = value;
+    }
+
+    /**
+     * <p>
+     * Gets the size of the initial sample of examples used in the evaluation
+     * </p>
+     *
+     * @return Size of the initial sample
+     */
+    public int getSampleSize() {
+        return sample_size;
+    }
+
+    /**
+     * <p>
+     * Sets the size of the initial sample of examples used in the evaluation.
+     * A value of 0 evaluates all the individuals with all the examples
+     * </p>
+     *
+     * @param value Size of the initial sample
+     */
+    public void setSampleSize(int value) {
+        sample_size = value;
+    }
+
+    /**
+     * <p>
+     * Gets the number of generations between doublings of the sample
+     * </p>
+     *
+     * @return Number of generations
+     */
+    public int getSampleInterval() {
+        return sample_interval;
+    }
+
+    /**
+     * <p>
+     * Sets the number of generations between doublings of the sample
+     * </p>
+     *
+     * @param value Number of generations
+     */
+    public void setSampleInterval(int value) {
+        sample_interval = value;
+    }
+
+    /**
+     * <p>
+     * Gets the evaluation cache of the genetic algorithm, created in the first
+     * call. It is kept between executions of the algorithm for the same class,
+     * as the only measure depending on the covered examples is recomputed
+     * </p>
+     *
+     * @return Evaluation cache, or null if it is disabled
+     */
+    public synchronized EvalCache getCache() {
+        if (cache == null && cache_size > 0) {
+            cache = new EvalCache(cache_size);
+        }
+        return cache;
+    }
+
+    /**
+     * <p>
+     * Gets the evaluation cache for the examples indicated: the cache of the
+     * current sample, which is discarded when the sample changes, or the cache
+     * of the genetic algorithm
+     * </p>
+     *
+     * @param Examples Examples used in the evaluation
+     * @return Evaluation cache, or null if it is disabled
+     */
+    public EvalCache getCache(TableDat Examples) {
+        if (Examples.isSample()) {
+            return Examples == muestra ? cache_muestra : null;
+        }
+        return getCache();
+    }
+
+    /**
+     * <p>
+     * Writes the key of the chromosome of the individual in a buffer of the
+     * genetic algorithm, which is reused by all the lookups in the cache. Each
+     * island has its own genetic algorithm, so the buffer is not shared
+     * between threads
+     * </p>
+     *
+     * @param indiv Individual
+     * @param Variables Variables structure
+     * @return Buffer with the key of the chromosome
+     */
+    public long[] getKeyBuffer(Individual indiv, TableVar Variables) {
+        if (clave_cache == null) {
+            clave_cache = indiv.getKey(Variables);
+        } else {
+            indiv.getKey(Variables, clave_cache);
+        }
+        return clave_cache;
+    }
+
     /**
      * <p>
      * Gets the name of round robin
@@ -512,69 +756,475 @@ public class Genetic {
     public Individual GeneticAlgorithm(TableVar Variables, TableDat Examples, String nFile) {
 
         String contents;
+        int best_guy = 0;             //Position of the best guy
+
+        if (n_islands > 1) {
+            return IslandGeneticAlgorithm(Variables, Examples, nFile);
+        }
+
+        InitEvolution(Variables, Examples, nFile);
+
+        do { // GA General cycle
+
+            best_guy = Generation(Variables, Examples);
+
+        } while (Trials <= n_eval);
+
+        // The final population is evaluated with all the examples
+        if (muestra != null) {
+            FullEvaluation(Variables, Examples);
+            best_guy = BestIndividual(poblac);
+        }
+
+//        contents = "\tNumber of Generations = " + Gen + "\n";
+//        contents+= "\tNumber of Evaluations = " + Trials + "\n";
+//        File.AddtoFile(nFile, contents);
+        return poblac.getIndiv(best_guy);
+
+    }
+
+    /**
+     * <p>
+     * Creates and evaluates the initial population. The main and auxiliar
+     * populations are allocated in the first execution and reused in the
+     * following ones
+     * </p>
+     *
+     * @param Variables Variables structure
+     * @param Examples Examples structure
+     * @param nFile File to write the process
+     */
+    private void InitEvolution(TableVar Variables, TableDat Examples, String nFile) {
+
         float porcPob = (float) 0.5;  //Percentage of population: biased and random
         float porcVar = (float) 0.8;  //Maximum number of variables in the individuals
-        int best_guy = 0;             //Position of the best guy
-        int[] ten_best_guy;
 
-        poblac = new Population(long_poblacion, Variables.getNVars(), Examples.getNEx(), RulesRep, Variables, Trials);
+        if (poblac == null || poblac.getNumIndiv() != long_poblacion) {
+            poblac = new Population(long_poblacion, Variables.getNVars(), Examples.getNEx(), RulesRep, Variables, Trials);
+            auxiliar = new Population(long_poblacion, Variables.getNVars(), Examples.getNEx(), RulesRep, Variables, Trials);
+        } else {
+            poblac.ResetPopulation(Trials);
+        }
         poblac.BsdInitPob(Variables, Examples, porcVar, porcPob, Examples.getNEx(), nFile);
         Trials = 0;
         Gen = 0;
 
         //Evaluates the population
-        Trials += poblac.evalPop(this, Variables, Examples);
+        InitSample(Variables, Examples);
+        Trials += Cost(poblac.evalPop(this, Variables, EvaluationExamples(Examples)), Examples);
         //poblac.Print("");
 
-        do { // GA General cycle
+    }
 
-            Gen++;
-    
-            // Initialise auxiliar 
-            auxiliar = new Population(long_poblacion, Variables.getNVars(), Examples.getNEx(), RulesRep, Variables, Trials);
-            // Introduce the best individual of population in auxiliar
+    /**
+     * <p>
+     * Performs a generation of the genetic algorithm: elitism, selection,
+     * crossover, mutation and evaluation of the new population. The new
+     * population is built in the auxiliar one, which then swaps its role with
+     * the main population, so no objects are allocated
+     * </p>
+     *
+     * @param Variables Variables structure
+     * @param Examples Examples structure
+     * @return Position of the best individual of the previous population
+     */
+    private int Generation(TableVar Variables, TableDat Examples) {
 
-            best_guy = BestIndividual(poblac);
+        int best_guy;
+
+        Gen++;
+
+        // Initialise auxiliar 
+        auxiliar.ResetPopulation(Trials);
+        // Introduce the best individual of population in auxiliar
+
+        best_guy = BestIndividual(poblac);
 //     
-            auxiliar.CopyIndiv(0, Examples.getNEx(), poblac.getIndiv(best_guy));
-
-            for (int conta = 1; conta < long_poblacion / 2; conta++) {
-                
-                int dad = 0;
-                int mum = 0;
-                // Select the daddy and mummy
-                dad = Select();
+        auxiliar.CopyIndiv(0, Examples.getNEx(), poblac.getIndiv(best_guy));
+
+        for (int conta = 1; conta < long_poblacion / 2; conta++) {
+
+            int dad = 0;
+            int mum = 0;
+            // Select the daddy and mummy
+            dad = Select();
+            mum = Select();
+
+            while (mum == dad) {
                 mum = Select();
+            }
+
+            // Crosses
+            CrossMultipoint(Variables, dad, mum, conta, Examples.getNEx());
+            // Mutates
+            Mutation(Variables, (conta * 2) - 1);
+            Mutation(Variables, (conta * 2));
+        }
+
+        int dad = 0;
+        if (long_poblacion % 2 == 0) {
+            dad = Select();
+            auxiliar.CopyIndiv(long_poblacion - 1, Examples.getNEx(), poblac.getIndiv(dad));
+        }
+
+        //The auxiliar population becomes the main one
+        Population temp = poblac;
+        poblac = auxiliar;
+        auxiliar = temp;
+
+        if (muestra != null && Gen % sample_interval == 0) {
+            GrowSample(Variables, Examples);
+        }
+
+        Trials += Cost(poblac.evalPop(this, Variables, EvaluationExamples(Examples)), Examples);
 
-                while (mum == dad) {
-                    mum = Select();
+        return best_guy;
+
+    }
+
+    /**
+     * <p>
+     * Island model of the genetic algorithm. Each island is a subpopulation of
+     * "long_poblacion" individuals with its own random generator, evolved in
+     * parallel until "n_eval" evaluations. Every "migration_interval"
+     * generations the best "n_migrants" individuals of each island replace the
+     * worst ones of the next island in the ring. The best individual is chosen
+     * with BestIndividual among the final individuals of all the islands.
+     * The seeds of the islands are drawn from the main generator, so the
+     * result only depends on the seed and not on the scheduling of threads
+     * </p>
+     *
+     * @param Variables Variables structure
+     * @param Examples Examples structure
+     * @param nFile File to write the process
+     * @return Best individual of all the islands
+     */
+    private Individual IslandGeneticAlgorithm(final TableVar Variables, final TableDat Examples, final String nFile) {
+
+        final Genetic[] islas = new Genetic[n_islands];
+        for (int i = 0; i < n_islands; i++) {
+            islas[i] = new Genetic(this);
+            islas[i].setNIslands(1);
+            islas[i].cache = getCache();
+            islas[i].generador = new MTwister(Randomize.Randint(0, Integer.MAX_VALUE));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(n_islands, Runtime.getRuntime().availableProcessors()));
+        List<Future<?>> tareas = new ArrayList<Future<?>>();
+        boolean terminado;
+
+        try {
+            do {
+                // Evolves the islands until the next migration
+                tareas.clear();
+                for (final Genetic isla : islas) {
+                    tareas.add(pool.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            isla.Evolve(Variables, Examples, nFile, migration_interval);
+                        }
+                    }));
                 }
+                for (Future<?> tarea : tareas) {
+                    tarea.get();
+                }
+
+                terminado = true;
+                for (Genetic isla : islas) {
+                    if (isla.getTrials() <= n_eval) {
+                        terminado = false;
+                    }
+                }
+
+                if (!terminado) {
+                    Migrate(islas, Variables, Examples);
+                }
+            } while (!terminado);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while evolving the islands", ex);
+        } catch (ExecutionException ex) {
+            throw new RuntimeException("Error in the evolution of the islands", ex);
+        } finally {
+            pool.shutdown();
+        }
+
+        // The final populations are evaluated with all the examples
+        for (Genetic isla : islas) {
+            isla.FullEvaluation(Variables, Examples);
+        }
+
+        // Merges the islands to select the best individual
+        Population total = new Population(n_islands * long_poblacion, Variables.getNVars(), Examples.getNEx(), RulesRep, Variables, 0);
+        Trials = 0;
+        Gen = 0;
+        for (int i = 0; i < n_islands; i++) {
+            for (int j = 0; j < long_poblacion; j++) {
+                total.CopyIndiv(i * long_poblacion + j, Examples.getNEx(), islas[i].poblac.getIndiv(j));
+            }
+            Trials += islas[i].getTrials();
+            Gen = Math.max(Gen, islas[i].getGen());
+        }
+
+        return total.getIndiv(BestIndividual(total));
+
+    }
+
+    /**
+     * <p>
+     * Evolves the population of an island for a number of generations, using
+     * the random generator of the island. The population is created in the
+     * first call
+     * </p>
+     *
+     * @param Variables Variables structure
+     * @param Examples Examples structure
+     * @param nFile File to write the process
+     * @param generations Number of generations to perform
+     */
+    private void Evolve(TableVar Variables, TableDat Examples, String nFile, int generations) {
 
-                // Crosses
-                CrossMultipoint(Variables, dad, mum, conta, Examples.getNEx());
-                // Mutates
-                Mutation(Variables, (conta * 2) - 1);
-                Mutation(Variables, (conta * 2));
+        Randomize.setGenerator(generador);
+        try {
+            if (poblac == null) {
+                InitEvolution(Variables, Examples, nFile);
             }
+            for (int g = 0; g < generations && Trials <= n_eval; g++) {
+                Generation(Variables, Examples);
+            }
+        } finally {
+            Randomize.setGenerator(null);
+        }
 
-            int dad = 0;
-            if (long_poblacion % 2 == 0) {
-                dad = Select();
-                auxiliar.CopyIndiv(long_poblacion - 1, Examples.getNEx(), poblac.getIndiv(dad));
+    }
+
+    /**
+     * <p>
+     * Ring migration: the best "n_migrants" individuals of each island replace
+     * the worst individuals of the next island. Migrants are copied before any
+     * replacement, so each island sends its own elite. The quality measures
+     * travel with the individuals, as all the islands share the same examples
+     * and coverage, unless the islands are evaluating on samples: then the
+     * migrants are evaluated again with the sample of their new island
+     * </p>
+     *
+     * @param islas Islands of the genetic algorithm
+     * @param Variables Variables structure
+     * @param Examples Examples structure
+     */
+    private void Migrate(Genetic[] islas, TableVar Variables, TableDat Examples) {
+
+        int neje = Examples.getNEx();
+
+        int migrantes = Math.min(n_migrants, long_poblacion - 1);
+        if (migrantes <= 0) {
+            return;
+        }
+
+        Population elite = new Population(islas.length * migrantes, Variables.getNVars(), neje, RulesRep, Variables, 0);
+        for (int i = 0; i < islas.length; i++) {
+            int[] orden = islas[i].RankIndividuals();
+            for (int k = 0; k < migrantes; k++) {
+                elite.CopyIndiv(i * migrantes + k, neje, islas[i].poblac.getIndiv(orden[k]));
             }
+        }
 
-            //Copy auxiliar population in poblac population
-            poblac.CopyPopulation(auxiliar, Examples.getNEx());
+        for (int i = 0; i < islas.length; i++) {
+            Genetic destino = islas[(i + 1) % islas.length];
+            int[] orden = destino.RankIndividuals();
+            for (int k = 0; k < migrantes; k++) {
+                destino.poblac.CopyIndiv(orden[long_poblacion - 1 - k], neje, elite.getIndiv(i * migrantes + k));
+                if (destino.muestra != null) {
+                    destino.poblac.setIndivEvaluated(orden[long_poblacion - 1 - k], false);
+                }
+            }
+            if (destino.muestra != null) {
+                destino.Trials += destino.Cost(destino.poblac.evalPop(destino, Variables, destino.muestra), Examples);
+            }
+        }
 
-            Trials += poblac.evalPop(this, Variables, Examples);
-         
-            
-        } while (Trials <= n_eval);
+    }
 
-//        contents = "\tNumber of Generations = " + Gen + "\n";
-//        contents+= "\tNumber of Evaluations = " + Trials + "\n";
-//        File.AddtoFile(nFile, contents);
-        return poblac.getIndiv(best_guy);
+    /**
+     * <p>
+     * Sorts the individuals of the population by decreasing value of the
+     * criterion used in the selection
+     * </p>
+     *
+     * @return Positions of the individuals, from the best to the worst
+     */
+    private int[] RankIndividuals() {
+
+        double[] valor = new double[long_poblacion];
+        int[] orden = new int[long_poblacion];
+        for (int i = 0; i < long_poblacion; i++) {
+            valor[i] = poblac.getIndiv(i).getMeasures().getNSup() * 0.5
+                    + poblac.getIndiv(i).getMeasures().getFitness() * 0.5;
+            orden[i] = i;
+        }
+        Utils.OrDecIndex(valor, 0, long_poblacion - 1, orden);
+
+        return orden;
+
+    }
+
+    /**
+     * <p>
+     * Draws the random order of the examples of each class used to build the
+     * stratified samples, and builds the initial sample. Nothing is done if
+     * the evaluation with samples is disabled or the sample would contain all
+     * the examples
+     * </p>
+     *
+     * @param Variables Variables structure
+     * @param Examples Examples structure
+     */
+    private void InitSample(TableVar Variables, TableDat Examples) {
+
+        muestra = null;
+        cache_muestra = null;
+        coste_muestra = 0;
+        if (sample_size <= 0 || sample_size >= Examples.getNEx()) {
+            return;
+        }
+
+        orden_clase = new int[Variables.getNClass()][];
+        int[] n = new int[Variables.getNClass()];
+        for (int c = 0; c < Variables.getNClass(); c++) {
+            orden_clase[c] = new int[Examples.getExamplesClass(c)];
+        }
+        for (int i = 0; i < Examples.getNEx(); i++) {
+            int c = Examples.getClass(i);
+            orden_clase[c][n[c]++] = i;
+        }
+        for (int[] orden : orden_clase) {
+            for (int i = orden.length - 1; i > 0; i--) {
+                int j = Randomize.Randint(0, i);
+                int aux = orden[i];
+                orden[i] = orden[j];
+                orden[j] = aux;
+            }
+        }
+
+        tam_muestra = sample_size;
+        BuildSample(Variables, Examples);
+
+    }
+
+    /**
+     * <p>
+     * Builds a sample of "tam_muestra" examples stratified by class: each class
+     * contributes in proportion to its number of examples. The samples are
+     * nested, as they are taken from the beginning of the same random orders
+     * </p>
+     *
+     * @param Variables Variables structure
+     * @param Examples Examples structure
+     */
+    private void BuildSample(TableVar Variables, TableDat Examples) {
+
+        int[] tomar = new int[orden_clase.length];
+        int total = 0;
+        for (int c = 0; c < orden_clase.length; c++) {
+            tomar[c] = (int) Math.min(orden_clase[c].length,
+                    ((long) tam_muestra * orden_clase[c].length + Examples.getNEx() - 1) / Examples.getNEx());
+            total += tomar[c];
+        }
+
+        int[] ejemplos = new int[total];
+        int pos = 0;
+        for (int c = 0; c < orden_clase.length; c++) {
+            System.arraycopy(orden_clase[c], 0, ejemplos, pos, tomar[c]);
+            pos += tomar[c];
+        }
+        Arrays.sort(ejemplos);
+
+        muestra = new TableDat(Examples, Variables, ejemplos);
+        cache_muestra = cache_size > 0 ? new EvalCache(cache_size) : null;
+
+    }
+
+    /**
+     * <p>
+     * Doubles the size of the sample, or starts using all the examples when
+     * the sample would contain all of them. The individuals of the population
+     * are marked as not evaluated, as their measures refer to the old sample
+     * </p>
+     *
+     * @param Variables Variables structure
+     * @param Examples Examples structure
+     */
+    private void GrowSample(TableVar Variables, TableDat Examples) {
+
+        if ((long) tam_muestra * 2 >= Examples.getNEx()) {
+            muestra = null;
+            cache_muestra = null;
+        } else {
+            tam_muestra *= 2;
+            BuildSample(Variables, Examples);
+        }
+        for (int i = 0; i < long_poblacion; i++) {
+            poblac.setIndivEvaluated(i, false);
+        }
+
+    }
+
+    /**
+     * <p>
+     * Evaluates again with all the examples the population evaluated on a
+     * sample, so the final individuals have their true measures and coverage
+     * </p>
+     *
+     * @param Variables Variables structure
+     * @param Examples Examples structure
+     */
+    private void FullEvaluation(TableVar Variables, TableDat Examples) {
+
+        if (muestra == null) {
+            return;
+        }
+        muestra = null;
+        cache_muestra = null;
+        for (int i = 0; i < long_poblacion; i++) {
+            poblac.setIndivEvaluated(i, false);
+        }
+        Trials += poblac.evalPop(this, Variables, Examples);
+
+    }
+
+    /**
+     * <p>
+     * Returns the examples used to evaluate the individuals: the current
+     * sample, or all the examples
+     * </p>
+     *
+     * @param Examples Examples structure
+     * @return Examples for the evaluation
+     */
+    private TableDat EvaluationExamples(TableDat Examples) {
+        return muestra != null ? muestra : Examples;
+    }
+
+    /**
+     * <p>
+     * Returns the number of trials corresponding to a number of evaluations.
+     * An evaluation on a sample counts as the fraction of a trial given by the
+     * size of the sample, and the remainder is kept for the next evaluations
+     * </p>
+     *
+     * @param evaluaciones Number of individuals evaluated
+     * @param Examples Examples structure
+     * @return Number of trials
+     */
+    private int Cost(int evaluaciones, TableDat Examples) {
+
+        if (muestra == null) {
+            return evaluaciones;
+        }
+        coste_muestra += (long) evaluaciones * muestra.getNEx();
+        int trials = (int) (coste_muestra / Examples.getNEx());
+        coste_muestra -= (long) trials * Examples.getNEx();
+        return trials;
 
     }
 
@@ -42,7 +42,7 @@ public class IndCAN extends Individual {
         medidas = new QualityMeasures( );
 
         evaluado = false;
-        cubre = new boolean [neje];
+        cubre = new long [Utils.NumWords(neje)];
 
         n_eval = trials;
 
@@ -61,8 +61,8 @@ public class IndCAN extends Individual {
     public void RndInitInd(TableVar Variables, float porcVar, int neje, String nFile) {
         cromosoma.RndInitCrom(Variables, porcVar);  // Random initialization method
         evaluado = false;                           // Individual not evaluated
-        for (int i=0; i<neje; i++){
-            cubre[i] = false;
+        for (int i=0; i<cubre.length; i++){
+            cubre[i] = 0;
         }
 
         n_eval = 0;
@@ -84,8 +84,8 @@ public class IndCAN extends Individual {
   
         evaluado = false;
 
-        for (int i=0; i<Examples.getNEx(); i++){
-            cubre[i] = false;
+        for (int i=0; i<cubre.length; i++){
+            cubre[i] = 0;
         }
 
         n_eval = 0;
@@ -183,7 +183,7 @@ public class IndCAN extends Individual {
             this.setCromElem(i, a.getCromElem(i));
 
         this.setIndivEvaluated(a.getIndivEvaluated());
-        for (int i=0;i<neje;i++)
+        for (int i=0;i<cubre.length;i++)
            this.cubre[i] = a.cubre[i];
 
         this.setNEval(a.getNEval());
@@ -192,6 +192,24 @@ public class IndCAN extends Individual {
         
     }
 
+    /**
+     * <p>
+     * Resets the individual to the state of a newly created one, reusing its
+     * chromosome and arrays
+     * </p>
+     * @param trials            Number of evaluations performed
+     */
+    public void resetIndiv (int trials) {
+        for (int i=0;i<this.tamano;i++)
+            this.setCromElem(i, 0);
+
+        evaluado = false;
+        for (int i=0;i<cubre.length;i++)
+           cubre[i] = 0;
+
+        n_eval = trials;
+    }
+
 
     /**
      * <p>
@@ -203,243 +221,94 @@ public class IndCAN extends Individual {
      */
     public void evalInd (Genetic AG, TableVar Variables, TableDat Examples) {
 
-//        int ejAntFuzzy=0;                // Number of compatible examples with the antecedent of any class - fuzzy version --- unused
-//        int ejAntClassFuzzy=0;           // Number of compatible examples (antecedent and class) - fuzzy version
-//        int ejAntNoClassFuzzy=0;           // Number of compatible examples (antecedent and class) - fuzzy version
-//        int ejAntClassNewFuzzy=0;        // Number of new covered compatible examples (antec and class) - fuzzy version
-//        float gradoAntFuzzy=0;           // Total compatibility degree with the antecedent - fuzzy version
-//        float gradoAntClassFuzzy=0;      // Tot compatibility degree with antecedent and class - fuzzy version
-//        float gradoAntClassNewEjFuzzy=0; // Tot compatibility degree with antecedent and class of new covered examples - fuzzy version
-//        float disparoFuzzy;    // Final compatibility degree of the example with the individual - fuzzy version
-
-        int ejAntCrisp=0;                // Number of compatible examples with the antecedent of any class - crisp version
-        int ejAntClassCrisp=0;           // Number of compatible examples (antecedent and class) - crisp version
-        int ejAntNoClassCrisp=0;         // Number of compatible examples (antecedent and NOT class) - crisp version
-        int ejAntClassNewCrisp=0;        // Number of new covered compatible examples (antec and class) - crisp version
-        float disparoCrisp;    // Final compatibility or not of the example with the individual - crisp version
-
-        float tp=0;
-        float tn=0;
-        float fp=0;
-        float fn=0;     
-        float tpr=0;
-        float fpr=0;
-        float tnr=0;
-        
-        float leng, supM, supm, unus, gain, difs, sens, nsup, conf, medgeo;
+        int numVarNoInterv=0;  // Number of variables not taking part in the individual
+        int valor;
+        long[] etiq, perdidos;
+
+        // Starts with all the examples and keeps, for each variable taking part,
+        // the ones with the value of the chromosome or a lost value
+        // When the examples are a sample, only its first words are used
+        int palabras = Examples.getNWords();
+        System.arraycopy(Examples.getAllSet(), 0, cubre, 0, palabras);
+        for (int w=palabras; w<cubre.length; w++)
+            cubre[w] = 0;
 
-        int ejClase[] = new int[Variables.getNClass()];
-        int cubreClase[] = new int[Variables.getNClass()];
-        for (int i=0; i<Variables.getNClass(); i++) {
-            cubreClase[i]=0;
-            ejClase[i] = Examples.getExamplesClass (i);
+        for (int j=0; j<Variables.getNVars(); j++) {
+            valor = cromosoma.getCromElem(j);
+            if ((!Variables.getContinuous(j) && valor<=Variables.getMax(j)) ||
+                (Variables.getContinuous(j) && valor<Variables.getNLabelVar(j))) {
+                // Variable j takes part in the rule
+                etiq = Examples.getLabelSet(j, valor);
+                perdidos = Examples.getLostSet(j);
+                for (int w=0; w<palabras; w++)
+                    cubre[w] &= etiq[w] | perdidos[w];
+            }
+            else
+                numVarNoInterv++;  // Variable does not take part
         }
 
-        int numVarNoInterv=0;  // Number of variables not taking part in the individual
+        // Compute the measures
+        evalMeasures(AG, Variables, Examples, numVarNoInterv);
 
+        // Set the individual as evaluated
+        evaluado = true;
 
-        for (int i=0; i<Examples.getNEx(); i++) { // For each example of the dataset
-            // Initialization
-//            disparoFuzzy = 1;
-            disparoCrisp = 1;
-            numVarNoInterv = 0;
-
-            // Compute all chromosome values
-            for (int j=0; j<Variables.getNVars(); j++) {
-                if (!Variables.getContinuous(j)) {  // Discrete Variable
-                    if (cromosoma.getCromElem(j)<=Variables.getMax(j)){
-                        // Variable j takes part in the rule
-                        if ((Examples.getDat(i,j) != cromosoma.getCromElem(j)) && (!Examples.getLost(Variables,i,j))) {
-                            // If chromosome value <> example value, and example value is not a lost value
-//                            disparoFuzzy = 0;    
-                            disparoCrisp = 0;    
-                        }
-                    }
-                    else
-                        numVarNoInterv++;  // Variable does not take part
-                }
-                else {	// Continuous variable
-                    if (cromosoma.getCromElem(j)<Variables.getNLabelVar(j)) {
-                        // Variable takes part in the rule
-                        // Fuzzy computation
-//                        if (!Examples.getLost(Variables,i,j)) {
-//                            // If the value is not a lost value
-//                            float pertenencia = Variables.Fuzzy(j, cromosoma.getCromElem(j), Examples.getDat(i,j));
-//                            disparoFuzzy = Utils.Minimum (disparoFuzzy, pertenencia);
-//                        }
-                        // Crisp computation
-                        if (!Examples.getLost(Variables,i,j))
-                            if (NumInterv (Examples.getDat(i,j),j, Variables)!= cromosoma.getCromElem(j))
-                                disparoCrisp = 0;
-                    }
-                    else
-                        numVarNoInterv++;  // Variable does not take part
-                }
-            } // End FOR all chromosome values
-
-            // Update counters and mark example if needed
-//            gradoAntFuzzy += disparoFuzzy;
-            if (disparoCrisp>0) {
-            	ejAntCrisp++;
-                cubre[i]=true;
-                if (Examples.getClass(i) == Variables.getNumClassObj()) {
-//                    gradoAntClassFuzzy +=disparoFuzzy;
-                    ejAntClassCrisp ++;
-                    tp++;
-                } else {
-                    ejAntNoClassCrisp ++;
-                    fp++;
-                }
-                cubreClase[Examples.getClass(i)]++;
-                if ((!Examples.getCovered(i)) &&  (Examples.getClass(i) == Variables.getNumClassObj())) {
-                    // If example was not previusly covered and belongs to the target class increments the number of covered examples
-                    ejAntClassNewCrisp++;
-//                    gradoAntClassNewEjFuzzy += disparoFuzzy;
-                }
-            } else {
-                cubre[i]=false;
-                if (Examples.getClass(i) == Variables.getNumClassObj()) {
-                    fn++;
-                } else {
-                    tn++;
-                }
-            }
-            
-        } // End of cycle for each example
+    }
+
+    /**
+     * <p>
+     * Returns the canonical encoding of the chromosome: the value of each
+     * variable taking part in the rule, or -1 for the variables not taking part
+     * </p>
+     * @param Variables         Variables structure
+     * @return                  Encoding of the chromosome
+     */
+    public long[] getKey (TableVar Variables) {
 
+        long[] clave = new long[Variables.getNVars()];
+        getKey(Variables, clave);
+        return clave;
 
-        // Compute the measures
-        //LENGTH
-        if (ejAntClassCrisp != 0)
-            leng = ((float)1/ejAntClassCrisp);
-        else leng = 0;
-        if (numVarNoInterv >= Variables.getNVars())
-            medidas.setLength(0);
-        else medidas.setLength(leng);
-        //SENS
-        if (Examples.getExamplesClassObj() != 0)
-            sens = ((float)ejAntClassCrisp/Examples.getExamplesClassObj());
-        else sens = 0;
-        if (numVarNoInterv >= Variables.getNVars())
-            medidas.setSens(0);
-        else medidas.setSens(sens);
-        //CONF
-        if (ejAntCrisp != 0)
-            conf = (float)ejAntClassCrisp/ejAntCrisp;
-        else conf = 0;
-        if (numVarNoInterv >= Variables.getNVars())
-            medidas.setConf(0);
-        else medidas.setConf(conf);
-        //UNUS
-        float coverage = ((float)ejAntCrisp/Examples.getNEx());
-        if (ejAntCrisp==0)
-            unus = 0;
-        else unus =  coverage * ((float)ejAntClassCrisp/ejAntCrisp - (float)Examples.getExamplesClassObj()/Examples.getNEx());
-        if (numVarNoInterv >= Variables.getNVars())
-            medidas.setUnus(0);
-        else medidas.setUnus(unus);
-        //NSUP
-        if (Examples.getExamplesClassObj()-Examples.getExamplesCoveredClass()!=0)
-            nsup = ((float) (ejAntClassNewCrisp) / (Examples.getExamplesClassObj()-Examples.getExamplesCoveredClass()));
-        else nsup = 0;
-        if (numVarNoInterv >= Variables.getNVars())
-            medidas.setNSup(0);
-        else medidas.setNSup(nsup);
-        //SUPM
-        /*
-        if (Examples.getNEx() != 0)
-            supM = ((float)ejAntNoClassCrisp/Examples.getNEx());
-        else supM = 0;
-        if (numVarNoInterv >= Variables.getNVars())
-            medidas.setSupM(0);
-        else medidas.setSupM(supM);
-        //SUPm
-        if (Examples.getNEx() != 0)
-            supm = ((float)ejAntClassCrisp/Examples.getNEx());
-        else supm = 0;
-        if (numVarNoInterv >= Variables.getNVars())
-            medidas.setSupm(0);
-        else medidas.setSupm(supm);
-        //DIFF SUPPORT
-        difs = supm - supM;
-        if (numVarNoInterv >= Variables.getNVars())
-            medidas.setDifS(0);
-        else medidas.setDifS(difs);
-        */
-        //GAIN
-        if ((ejAntCrisp==0)||(sens==0))
-            gain = sens * (0-((float)Math.log10((float)Examples.getExamplesClassObj()/Examples.getNEx())));
-        else {
-            gain = sens * (((float)Math.log10(sens/coverage)) - ((float)Math.log10((float)Examples.getExamplesClassObj()/Examples.getNEx())));
-        }
-        if (numVarNoInterv >= Variables.getNVars())
-            medidas.setGain(0);
-        else medidas.setGain(gain);
-        //TPr
-        if (numVarNoInterv >= Variables.getNVars()){
-            tpr=0;
-        } else {
-            if ((tp+fn)!=0)
-                tpr=tp/(tp+fn);
-            else tpr=0;
-        }
-        //FPr
-        if (numVarNoInterv >= Variables.getNVars()){
-            fpr=0;
-        } else {
-            if ((fp+tn)!=0)
-                fpr=fp/(fp+tn);
-            else fpr=0;
+    }
+
+    /**
+     * <p>
+     * Writes the canonical encoding of the chromosome in the array indicated,
+     * which must have one element per variable
+     * </p>
+     * @param Variables         Variables structure
+     * @param clave             Array where the encoding is written
+     */
+    public void getKey (TableVar Variables, long[] clave) {
+
+        for (int j=0; j<Variables.getNVars(); j++) {
+            int valor = cromosoma.getCromElem(j);
+            if ((!Variables.getContinuous(j) && valor<=Variables.getMax(j)) ||
+                (Variables.getContinuous(j) && valor<Variables.getNLabelVar(j)))
+                clave[j] = valor;
+            else
+                clave[j] = -1;
         }
-        //TNr
-        if (numVarNoInterv >= Variables.getNVars()){
-            tnr=0;
-        } else {
-            if ((fp+tn)!=0)
-                tnr=tn/(fp+tn);
-            else tnr=0;
+
+    }
+
+    /**
+     * <p>
+     * Returns the number of variables not taking part in the rule
+     * </p>
+     * @param Variables         Variables structure
+     * @return                  Number of variables not taking part
+     */
+    public int getNumVarNoInterv (TableVar Variables) {
+
+        int numVarNoInterv=0;
+        for (int j=0; j<Variables.getNVars(); j++) {
+            int valor = cromosoma.getCromElem(j);
+            if (!((!Variables.getContinuous(j) && valor<=Variables.getMax(j)) ||
+                  (Variables.getContinuous(j) && valor<Variables.getNLabelVar(j))))
+                numVarNoInterv++;
         }
-        
-        supM = fpr; 
-        medidas.setSupM(supM);
-        supm = tpr; 
-        medidas.setSupm(supm);
-        difs = Math.abs(supm - supM); 
-        medidas.setDifS(difs);
-        
-        /*
-        AUC
-        if (numVarNoInterv >= Variables.getNVars()){
-            auc = 0;
-        } else auc = (1 + tpr - fpr) / 2;
-        medidas.setAUC(auc);
-        */
-        //MedGeo
-        if (numVarNoInterv >= Variables.getNVars()){
-            medgeo = 0;
-        } else medgeo = (float) Math.sqrt(tpr*tnr);
-        medidas.setMedGeo(medgeo);
-        //GRAT
-        float grat;
-        if(tpr!=0 && fpr!=0) grat = tpr/fpr;
-        else if(tpr!=0 && fpr==0) grat = Float.POSITIVE_INFINITY;
-        else grat = 0;
-        
-        medidas.setGRat(grat);
-        
-        //Introduce in fitness the correspondent value
-        if (AG.getFitness().compareTo("NSUP")==0) medidas.setFitness(nsup);
-        if (AG.getFitness().compareTo("SENS")==0) medidas.setFitness(sens);
-        if (AG.getFitness().compareTo("SUPMA")==0) medidas.setFitness(supM);
-        if (AG.getFitness().compareTo("SUPMI")==0) medidas.setFitness(supm);
-        if (AG.getFitness().compareTo("UNUS")==0) medidas.setFitness(unus);
-        if (AG.getFitness().compareTo("CONF")==0) medidas.setFitness(conf);
-        if (AG.getFitness().compareTo("MEDGEO")==0) medidas.setFitness(medgeo);
-        if (AG.getFitness().compareTo("GRAT")==0) medidas.setFitness(grat);
-        if (AG.getFitness().compareTo("GAIN")==0) medidas.setFitness(gain);
-        
-        // Set the individual as evaluated
-        evaluado = true;
+        return numVarNoInterv;
 
     }
 
@@ -487,7 +356,7 @@ public class IndCAN extends Individual {
                     // Variable takes part in the rule
                     // Crisp computation
                     if (!Examples.getLost(Variables,eje,j)) {
-                        if (NumInterv (Examples.getDat(eje,j),j, Variables)!= cromosoma.getCromElem(j))
+                        if (Examples.getInterv(eje,j) != cromosoma.getCromElem(j))
                             disparo = 0;
                     }
                     // Fuzzy computation
@@ -8,6 +8,7 @@
 
 package algorithms.evaep;
 
+import java.util.Arrays;
 import org.core.File;
 import keel.Dataset.*;
 
@@ -38,8 +39,10 @@ public class IndDNF extends Individual {
           tamano = lenght;
           cromosoma = new CromDNF(lenght, Variables);
 
+          medidas = new QualityMeasures( );
+
           evaluado = false;
-          cubre = new boolean [neje];
+          cubre = new long [Utils.NumWords(neje)];
 
           n_eval = trials;
 
@@ -57,8 +60,8 @@ public class IndDNF extends Individual {
     public void RndInitInd(TableVar Variables, float porcVar, int neje, String nFile) {
         cromosoma.RndInitCrom(Variables, porcVar);        // Random initialization method
         evaluado = false;               // Individual not evaluated
-        for (int i=0; i<neje; i++){
-            cubre[i] = false;
+        for (int i=0; i<cubre.length; i++){
+            cubre[i] = 0;
         }
 
         n_eval = 0;
@@ -78,8 +81,8 @@ public class IndDNF extends Individual {
         cromosoma.BsdInitCrom(Variables, Examples, porcVar);
         evaluado = false;
 
-        for (int i=0; i<Examples.getNEx(); i++){
-            cubre[i] = false;
+        for (int i=0; i<cubre.length; i++){
+            cubre[i] = 0;
         }
 
         n_eval = 0;
@@ -179,7 +182,7 @@ public class IndDNF extends Individual {
            }
         }
         this.setIndivEvaluated(a.getIndivEvaluated());
-        for (int i=0;i<neje;i++)
+        for (int i=0;i<cubre.length;i++)
            this.cubre[i] = a.cubre[i];
         this.setNEval(a.getNEval());
 
@@ -187,6 +190,27 @@ public class IndDNF extends Individual {
         
     }
 
+    /**
+     * <p>
+     * Resets the individual to the state of a newly created one, reusing its
+     * chromosome and arrays
+     * </p>
+     * @param trials            Number of evaluations performed
+     */
+    public void resetIndiv (int trials) {
+        for (int i=0;i<this.tamano;i++) {
+            int number = cromosoma.getCromGeneLenght(i);
+            for (int j=0;j<=number;j++)
+                this.setCromGeneElem(i,j, false);
+        }
+
+        evaluado = false;
+        for (int i=0;i<cubre.length;i++)
+           cubre[i] = 0;
+
+        n_eval = trials;
+    }
+
     /**
      * <p>
      * Evaluate a individual. This function evaluates an individual.
@@ -197,232 +221,103 @@ public class IndDNF extends Individual {
      */
     public void evalInd (Genetic AG, TableVar Variables, TableDat Examples) {
 
-        int ejCompAntFuzzy=0;                // Number of compatible examples with the antecedent of any class - fuzzy version --- unused
-        int ejCompAntCrisp=0;                // Number of compatible examples with the antecedent of any class - crisp version
-        int ejCompAntClassFuzzy=0;           // Number of compatible examples (antecedent and class) - fuzzy version
-        int ejCompAntClassCrisp=0;           // Number of compatible examples (antecedent and class) - crisp version
-        int ejCompAntClassNewFuzzy=0;        // Number of new covered compatible examples (antec and class) - fuzzy version
-        int ejCompAntClassNewCrisp=0;        // Number of new covered compatible examples (antec and class) - crisp version
-
-        float gradoCompAntFuzzy=0;           // Total compatibility degree with the antecedent - fuzzy version
-        float gradoCompAntClassFuzzy=0;      // Tot compatibility degree with antecedent and class - fuzzy version
-        float gradoCompAntClassNewEjFuzzy=0; // Tot compatibility degree with antecedent and class of new covered examples - fuzzy version
+        int numVarNoInterv=0;  // Number of variables not taking part in the individual
+        long compatibles;
+        long[] perdidos;
+
+        // Crisp computation: starts with all the examples and keeps, for each
+        // variable taking part, the ones with a lost value or with a value
+        // (interval for continuous variables) among the labels of the gene
+        // When the examples are a sample, only its first words are used
+        int palabras = Examples.getNWords();
+        System.arraycopy(Examples.getAllSet(), 0, cubre, 0, palabras);
+        for (int w=palabras; w<cubre.length; w++)
+            cubre[w] = 0;
+
+        for (int j=0; j<Variables.getNVars(); j++) {
+            if (cromosoma.getCromGeneElem(j,Variables.getNLabelVar(j))==true){
+                // Variable j takes part in the rule
+                perdidos = Examples.getLostSet(j);
+                for (int w=0; w<palabras; w++) {
+                    compatibles = perdidos[w];
+                    for (int k=0; k<Variables.getNLabelVar(j); k++) {
+                        if (cromosoma.getCromGeneElem(j,k)==true)
+                            compatibles |= Examples.getLabelSet(j,k)[w];
+                    }
+                    cubre[w] &= compatibles;
+                }
+            }
+            else
+                numVarNoInterv++;  // Variable does not take part
+        }
 
-        float disparoFuzzy;    // Final compatibility degree of the example with the individual - fuzzy version
-        float disparoCrisp;    // Final compatibility degree of the example with the individual - crisp version
+        // Compute the crisp measures
+        evalMeasures(AG, Variables, Examples, numVarNoInterv);
 
-        float completitud, fsupport, csupport, confianza, cconfianza;
-        float unusualness, coverage, accuracy, significance;
+        evaluado = true;
 
-        float valorConf, valorComp;   // Variables to store the selected measures
+    }
 
-        float tp = 0;
-        float fp = 0;
+    /**
+     * <p>
+     * Returns the canonical encoding of the chromosome: the genes of the
+     * variables taking part in the rule packed one bit per label (plus the
+     * bit of participation), and all the bits to zero for the variables not
+     * taking part
+     * </p>
+     * @param Variables         Variables structure
+     * @return                  Encoding of the chromosome
+     */
+    public long[] getKey (TableVar Variables) {
 
-        int ejClase[] = new int[Variables.getNClass()];
-        int cubreClase[] = new int[Variables.getNClass()];
-        for (int i=0; i<Variables.getNClass(); i++) {
-            cubreClase[i]=0;
-            ejClase[i] = Examples.getExamplesClass (i);
-        }
+        int nbits=0;
+        for (int j=0; j<Variables.getNVars(); j++)
+            nbits += Variables.getNLabelVar(j)+1;
 
-        //int por_cubrir;        // Number of examples of the class not covered yet - for fuzzy version
+        long[] clave = new long[Utils.NumWords(nbits)];
+        getKey(Variables, clave);
+        return clave;
 
-        int numVarNoInterv=0;  // Number of variables not taking part in the individual
+    }
 
-        for (int i=0; i<Examples.getNEx(); i++) { // For each example of the dataset
-            // Initialisation
-            disparoFuzzy = 1;
-            disparoCrisp = 1;
-            numVarNoInterv = 0;
-
-            // Compute all chromosome values
-            for (int j=0; j<Variables.getNVars(); j++) {
-                if (!Variables.getContinuous(j)) {  // Discrete Variable
-                    if (cromosoma.getCromGeneElem(j,Variables.getNLabelVar(j))==true){
-                        // Variable j does not take part in the rule
-                        if ((cromosoma.getCromGeneElem(j,(int)Examples.getDat(i,j))==false)&&(!Examples.getLost(Variables,i,j))) {
-                            disparoFuzzy = 0;
-                            disparoCrisp = 0;
-                        }
-                    }
-                    else
-                        numVarNoInterv++;
-                }
-                else {	// Continuous variable
-                    if (cromosoma.getCromGeneElem(j,Variables.getNLabelVar(j))==true){
-                        // Variable takes part in the rule
-                        // Fuzzy computation
-                        if (!Examples.getLost(Variables,i,j)) {
-                            float pertenencia = 0;
-                            float pert;
-                            for (int k=0; k<Variables.getNLabelVar(j); k++) {
-                                if (cromosoma.getCromGeneElem(j,k)==true)
-                                    pert = Variables.Fuzzy (j, k, Examples.getDat(i,j));
-                                else pert = 0;
-                                pertenencia = Utils.Maximum (pertenencia, pert);
-                            }
-                            disparoFuzzy = Utils.Minimum (disparoFuzzy, pertenencia);
-                        }
-                        // Crisp computation
-                        if (!Examples.getLost(Variables,i,j)){
-                            if (cromosoma.getCromGeneElem(j,NumInterv (Examples.getDat(i,j),j, Variables))==false)
-                                disparoCrisp = 0;
-                            // If chromosome value <> example value, and example value != lost value (lost value are COMPATIBLES */
-                        }
-                    }
-                    else
-                        numVarNoInterv++;  // Variable does not take part
-                }
-            } // End FOR all chromosome values
-
-            // Update globals counters
-            gradoCompAntFuzzy += disparoFuzzy;
-            if (disparoFuzzy>0) {
-            	ejCompAntFuzzy++;
-                if (Examples.getClass(i) == Variables.getNumClassObj()) {
-                    gradoCompAntClassFuzzy +=disparoFuzzy;
-                    ejCompAntClassFuzzy ++;
-                }
-                if ((!Examples.getCovered(i)) &&  (Examples.getClass(i) == Variables.getNumClassObj())) {
-                    ejCompAntClassNewFuzzy++;
-                    gradoCompAntClassNewEjFuzzy += disparoFuzzy;
-                    cubre[i]=true;
-                    Examples.setCovered(i, true);
-                }
-                //Calculate the AUC of the rule
-                if (Examples.getClass(i)==Variables.getNumClassObj()){
-                    tp++;
-                } else fp++;
-            }
-            if (disparoCrisp>0) {
-                ejCompAntCrisp++;
-                if (Examples.getClass(i) == Variables.getNumClassObj()) {
-                    ejCompAntClassCrisp ++;
-                }
-                cubreClase[Examples.getClass(i)]++;
-                if ((!Examples.getCovered(i)) &&  (Examples.getClass(i) == Variables.getNumClassObj())) {
-                    ejCompAntClassNewCrisp++;
-                    cubre[i]=true;
-                    Examples.setCovered(i, true);
+    /**
+     * <p>
+     * Writes the canonical encoding of the chromosome in the array indicated,
+     * which must have the length of the one returned by getKey
+     * </p>
+     * @param Variables         Variables structure
+     * @param clave             Array where the encoding is written
+     */
+    public void getKey (TableVar Variables, long[] clave) {
+
+        Arrays.fill(clave, 0);
+        int bit=0;
+        for (int j=0; j<Variables.getNVars(); j++) {
+            if (cromosoma.getCromGeneElem(j,Variables.getNLabelVar(j))==true) {
+                for (int k=0; k<=Variables.getNLabelVar(j); k++) {
+                    if (cromosoma.getCromGeneElem(j,k)==true)
+                        clave[(bit+k) >>> 6] |= 1L << (bit+k);
                 }
             }
+            bit += Variables.getNLabelVar(j)+1;
+        }
+
+    }
+
+    /**
+     * <p>
+     * Returns the number of variables not taking part in the rule
+     * </p>
+     * @param Variables         Variables structure
+     * @return                  Number of variables not taking part
+     */
+    public int getNumVarNoInterv (TableVar Variables) {
 
-        } // End of cycle for each example
-
-
-        // Compute the measures
-
-//        for(int j=0; j<AG.getNumObjectives(); j++){
-//
-//            if(AG.getNObjectives(j).compareTo("AUC")==0){
-//                float success = (1+((tp)/(Examples.getExamplesClass(Variables.getNumClassObj())))-((fp)/(Examples.getExamplesClass(Variables.getNumClassObj()))))/2;
-//                medidas.setObjectiveValue(j, success);
-//            }
-//            if(AG.getNObjectives(j).compareTo("COMP")==0){
-//                if (Examples.getExamplesClassObj() != 0)
-//                    completitud = ((float)ejCompAntClassFuzzy/Examples.getExamplesClassObj());
-//                else
-//                    completitud = 0;
-//                valorComp = completitud;
-//                if (numVarNoInterv >= Variables.getNVars())
-//                    medidas.setObjectiveValue(j, 0);
-//                else medidas.setObjectiveValue(j, valorComp);
-//            }
-//            if(AG.getNObjectives(j).compareTo("CSUP")==0){
-//                csupport = ((float)ejCompAntClassCrisp/Examples.getNEx());
-//                valorComp = csupport;
-//                if (numVarNoInterv >= Variables.getNVars())
-//                    medidas.setObjectiveValue(j, 0);
-//                else medidas.setObjectiveValue(j, valorComp);
-//            }
-//            if(AG.getNObjectives(j).compareTo("FSUP")==0){
-//                if (Examples.getNEx() != 0)
-//                    fsupport = ((float)gradoCompAntClassFuzzy/Examples.getNEx());
-//                else
-//                    fsupport = 0;
-//                valorComp = fsupport;
-//                if (numVarNoInterv >= Variables.getNVars())
-//                    medidas.setObjectiveValue(j, 0);
-//                else medidas.setObjectiveValue(j, valorComp);
-//            }
-//            if(AG.getNObjectives(j).compareTo("CCNF")==0){
-//                if (ejCompAntCrisp != 0)
-//                    cconfianza = (float)ejCompAntClassCrisp/ejCompAntCrisp;
-//                else
-//                    cconfianza = 0;
-//                valorConf = cconfianza;
-//                if (numVarNoInterv >= Variables.getNVars())
-//                    medidas.setObjectiveValue(j, 0);
-//                else medidas.setObjectiveValue(j, valorConf);
-//            }
-//            if(AG.getNObjectives(j).compareTo("FCNF")==0){
-//                if (gradoCompAntFuzzy != 0)
-//                    confianza = (float)gradoCompAntClassFuzzy/gradoCompAntFuzzy;
-//                else
-//                    confianza = 0;
-//                valorConf = confianza;
-//                if (numVarNoInterv >= Variables.getNVars())
-//                    medidas.setObjectiveValue(j, 0);
-//                else medidas.setObjectiveValue(j, valorConf);
-//            }
-//            if(AG.getNObjectives(j).compareTo("UNUS")==0){
-//                coverage = ((float)ejCompAntCrisp/Examples.getNEx());
-//                if (ejCompAntCrisp==0)
-//                    unusualness = 0;
-//                else
-//                    unusualness =  coverage * ( (float)ejCompAntClassCrisp/ejCompAntCrisp - (float)Examples.getExamplesClassObj()/Examples.getNEx());
-//
-//                float normUnus = unusualness + (float)Examples.getExamplesClassObj()/Examples.getNEx();
-//                if (numVarNoInterv >= Variables.getNVars())
-//                    medidas.setObjectiveValue(j, 0);
-//                else medidas.setObjectiveValue(j, normUnus);
-//            }
-//            if(AG.getNObjectives(j).compareTo("SIGN")==0){
-//                coverage = ((float)ejCompAntCrisp/Examples.getNEx());
-//                float sumaSignClase=0;
-//                for (int aux=0; aux<Variables.getNClass(); aux++) {
-//                    if (cubreClase[aux]!=0)
-//                        sumaSignClase += cubreClase[aux] * Math.log10 ((float)cubreClase[aux]/(ejClase[aux]*coverage));
-//                }
-//                significance = 2 * sumaSignClase;
-//                float maxSignif=0;
-//                for (int a=0; a<Variables.getNClass(); a++) {
-//                    if (cubreClase[a]!=0 && coverage!=0)
-//                        maxSignif += cubreClase[a] * Math.log10 ((float)1/coverage);
-//                }
-//                maxSignif = 2*maxSignif ;  
-//                float normSignif=0;
-//                if (maxSignif!=0)
-//                   normSignif = significance/maxSignif;
-//                if (numVarNoInterv >= Variables.getNVars())
-//                    medidas.setObjectiveValue(j, 0);
-//                else medidas.setObjectiveValue(j, normSignif);
-//            }
-//            if(AG.getNObjectives(j).compareTo("ACCU")==0){
-//                accuracy = (float)(ejCompAntClassCrisp+1) / (ejCompAntCrisp + Variables.getNClass());
-//                if (numVarNoInterv >= Variables.getNVars())
-//                    medidas.setObjectiveValue(j, 0);
-//                else medidas.setObjectiveValue(j, accuracy);
-//            }
-//            if(AG.getNObjectives(j).compareTo("COVE")==0){
-//                coverage = ((float)ejCompAntCrisp/Examples.getNEx());
-//                if (numVarNoInterv >= Variables.getNVars())
-//                    medidas.setObjectiveValue(j, 0);
-//                else medidas.setObjectiveValue(j, coverage);
-//            }
-//
-//        }
-//
-//        if (gradoCompAntFuzzy != 0)
-//            confianza = (float)gradoCompAntClassFuzzy/gradoCompAntFuzzy;
-//        else
-//            confianza = 0;
-//
-//        valorConf = confianza;
-//        medidas.setCnf(valorConf);
-//
-//        evaluado = true;
+        int numVarNoInterv=0;
+        for (int j=0; j<Variables.getNVars(); j++)
+            if (cromosoma.getCromGeneElem(j,Variables.getNLabelVar(j))==false)
+                numVarNoInterv++;
+        return numVarNoInterv;
 
     }
 
@@ -12,7 +12,7 @@ public abstract class Individual {
 
       public int tamano;      
       public boolean evaluado;
-      public boolean cubre[]; 
+      public long cubre[];         // Covered examples, one per bit
       
       public float cubr;
       public int n_eval;             
@@ -37,7 +37,7 @@ public abstract class Individual {
      * @return                  Value of the example
      */
     public boolean getIndivCovered (int pos) {
-        return cubre[pos];
+        return (cubre[pos >>> 6] & (1L << pos)) != 0;
     }
     
     /**
@@ -90,6 +90,199 @@ public abstract class Individual {
         return medidas;
     }
 
+    /**
+     * <p>
+     * Computes the crisp quality measures of the individual from the examples
+     * it covers. The counts of examples are obtained as the number of bits of
+     * the intersection of the coverage with the examples of the target class.
+     * NSup is computed apart in evalNSup, as it also depends on the examples
+     * covered by the previous rules
+     * </p>
+     * @param AG                Genetic algorithm
+     * @param Variables         Variables structure
+     * @param Examples          Examples structure
+     * @param numVarNoInterv    Number of variables not taking part in the individual
+     */
+    protected void evalMeasures (Genetic AG, TableVar Variables, TableDat Examples, int numVarNoInterv) {
+
+        int ejAntCrisp=0;                // Number of compatible examples with the antecedent of any class - crisp version
+        int ejAntClassCrisp=0;           // Number of compatible examples (antecedent and class) - crisp version
+
+        long[] clase = Examples.getClassSet(Variables.getNumClassObj());
+        for (int w=0; w<Examples.getNWords(); w++) {
+            ejAntCrisp += Long.bitCount(cubre[w]);
+            ejAntClassCrisp += Long.bitCount(cubre[w] & clase[w]);
+        }
+
+        float tp = ejAntClassCrisp;
+        float fp = ejAntCrisp - ejAntClassCrisp;
+        float fn = Examples.getExamplesClassObj() - ejAntClassCrisp;
+        float tn = Examples.getNEx() - Examples.getExamplesClassObj() - fp;
+        float tpr=0;
+        float fpr=0;
+        float tnr=0;
+
+        float leng, supM, supm, unus, gain, difs, sens, conf, medgeo;
+
+        //LENGTH
+        if (ejAntClassCrisp != 0)
+            leng = ((float)1/ejAntClassCrisp);
+        else leng = 0;
+        if (numVarNoInterv >= Variables.getNVars())
+            medidas.setLength(0);
+        else medidas.setLength(leng);
+        //SENS
+        if (Examples.getExamplesClassObj() != 0)
+            sens = ((float)ejAntClassCrisp/Examples.getExamplesClassObj());
+        else sens = 0;
+        if (numVarNoInterv >= Variables.getNVars())
+            medidas.setSens(0);
+        else medidas.setSens(sens);
+        //CONF
+        if (ejAntCrisp != 0)
+            conf = (float)ejAntClassCrisp/ejAntCrisp;
+        else conf = 0;
+        if (numVarNoInterv >= Variables.getNVars())
+            medidas.setConf(0);
+        else medidas.setConf(conf);
+        //UNUS
+        float coverage = ((float)ejAntCrisp/Examples.getNEx());
+        if (ejAntCrisp==0)
+            unus = 0;
+        else unus =  coverage * ((float)ejAntClassCrisp/ejAntCrisp - (float)Examples.getExamplesClassObj()/Examples.getNEx());
+        if (numVarNoInterv >= Variables.getNVars())
+            medidas.setUnus(0);
+        else medidas.setUnus(unus);
+        //SUPM
+        /*
+        if (Examples.getNEx() != 0)
+            supM = ((float)ejAntNoClassCrisp/Examples.getNEx());
+        else supM = 0;
+        if (numVarNoInterv >= Variables.getNVars())
+            medidas.setSupM(0);
+        else medidas.setSupM(supM);
+        //SUPm
+        if (Examples.getNEx() != 0)
+            supm = ((float)ejAntClassCrisp/Examples.getNEx());
+        else supm = 0;
+        if (numVarNoInterv >= Variables.getNVars())
+            medidas.setSupm(0);
+        else medidas.setSupm(supm);
+        //DIFF SUPPORT
+        difs = supm - supM;
+        if (numVarNoInterv >= Variables.getNVars())
+            medidas.setDifS(0);
+        else medidas.setDifS(difs);
+        */
+        //GAIN
+        if ((ejAntCrisp==0)||(sens==0))
+            gain = sens * (0-((float)Math.log10((float)Examples.getExamplesClassObj()/Examples.getNEx())));
+        else {
+            gain = sens * (((float)Math.log10(sens/coverage)) - ((float)Math.log10((float)Examples.getExamplesClassObj()/Examples.getNEx())));
+        }
+        if (numVarNoInterv >= Variables.getNVars())
+            medidas.setGain(0);
+        else medidas.setGain(gain);
+        //TPr
+        if (numVarNoInterv >= Variables.getNVars()){
+            tpr=0;
+        } else {
+            if ((tp+fn)!=0)
+                tpr=tp/(tp+fn);
+            else tpr=0;
+        }
+        //FPr
+        if (numVarNoInterv >= Variables.getNVars()){
+            fpr=0;
+        } else {
+            if ((fp+tn)!=0)
+                fpr=fp/(fp+tn);
+            else fpr=0;
+        }
+        //TNr
+        if (numVarNoInterv >= Variables.getNVars()){
+            tnr=0;
+        } else {
+            if ((fp+tn)!=0)
+                tnr=tn/(fp+tn);
+            else tnr=0;
+        }
+        
+        supM = fpr; 
+        medidas.setSupM(supM);
+        supm = tpr; 
+        medidas.setSupm(supm);
+        difs = Math.abs(supm - supM); 
+        medidas.setDifS(difs);
+        
+        /*
+        AUC
+        if (numVarNoInterv >= Variables.getNVars()){
+            auc = 0;
+        } else auc = (1 + tpr - fpr) / 2;
+        medidas.setAUC(auc);
+        */
+        //MedGeo
+        if (numVarNoInterv >= Variables.getNVars()){
+            medgeo = 0;
+        } else medgeo = (float) Math.sqrt(tpr*tnr);
+        medidas.setMedGeo(medgeo);
+        //GRAT
+        float grat;
+        if(tpr!=0 && fpr!=0) grat = tpr/fpr;
+        else if(tpr!=0 && fpr==0) grat = Float.POSITIVE_INFINITY;
+        else grat = 0;
+        
+        medidas.setGRat(grat);
+        
+        //Introduce in fitness the correspondent value
+        if (AG.getFitness().compareTo("SENS")==0) medidas.setFitness(sens);
+        if (AG.getFitness().compareTo("SUPMA")==0) medidas.setFitness(supM);
+        if (AG.getFitness().compareTo("SUPMI")==0) medidas.setFitness(supm);
+        if (AG.getFitness().compareTo("UNUS")==0) medidas.setFitness(unus);
+        if (AG.getFitness().compareTo("CONF")==0) medidas.setFitness(conf);
+        if (AG.getFitness().compareTo("MEDGEO")==0) medidas.setFitness(medgeo);
+        if (AG.getFitness().compareTo("GRAT")==0) medidas.setFitness(grat);
+        if (AG.getFitness().compareTo("GAIN")==0) medidas.setFitness(gain);
+
+        //NSUP
+        evalNSup(AG, Variables, Examples, numVarNoInterv);
+        
+    }
+
+    /**
+     * <p>
+     * Computes NSup, the support of the individual over the examples of the
+     * target class not yet covered, from the coverage of the individual and
+     * the examples covered by the previous rules
+     * </p>
+     * @param AG                Genetic algorithm
+     * @param Variables         Variables structure
+     * @param Examples          Examples structure
+     * @param numVarNoInterv    Number of variables not taking part in the individual
+     */
+    protected void evalNSup (Genetic AG, TableVar Variables, TableDat Examples, int numVarNoInterv) {
+
+        int ejAntClassNewCrisp=0;        // Number of new covered compatible examples (antec and class) - crisp version
+        float nsup;
+
+        long[] clase = Examples.getClassSet(Variables.getNumClassObj());
+        long[] cubiertos = Examples.getCoveredSet();
+        for (int w=0; w<Examples.getNWords(); w++)
+            ejAntClassNewCrisp += Long.bitCount(cubre[w] & clase[w] & ~cubiertos[w]);
+
+        if (Examples.getExamplesClassObj()-Examples.getExamplesCoveredClass()!=0)
+            nsup = ((float) (ejAntClassNewCrisp) / (Examples.getExamplesClassObj()-Examples.getExamplesCoveredClass()));
+        else nsup = 0;
+        if (numVarNoInterv >= Variables.getNVars())
+            medidas.setNSup(0);
+        else medidas.setNSup(nsup);
+
+        if (AG.getFitness().compareTo("NSUP")==0) medidas.setFitness(nsup);
+
+    }
+
+
     public abstract int getCromElem(int pos);
     public abstract void setCromElem (int pos, int val);
 
@@ -101,7 +294,15 @@ public abstract class Individual {
 
     public abstract void copyIndiv (Individual indi, int neje);
 
+    public abstract void resetIndiv (int trials);
+
     public abstract void evalInd (Genetic AG, TableVar Variables, TableDat Examples);
+
+    public abstract long[] getKey (TableVar Variables);
+
+    public abstract void getKey (TableVar Variables, long[] clave);
+
+    public abstract int getNumVarNoInterv (TableVar Variables);
     
     public abstract int NumInterv (float valor, int num_var, TableVar Variables);
 
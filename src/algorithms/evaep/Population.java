@@ -20,7 +20,7 @@ public class Population {
 
       private Individual indivi [];     // Population individuals
       private int num_indiv;           // Max number of individuals in the population
-      public boolean ej_cubiertos[];   // Covered examples of the population
+      public long ej_cubiertos[];      // Covered examples of the population, one per bit
 
       /**
        * <p>
@@ -52,9 +52,9 @@ public class Population {
                 indivi[i] = new IndDNF(numgen, neje, Variables, trials);
               }
           }
-          ej_cubiertos = new boolean[neje];
-          for(int i=0; i<neje; i++)
-            ej_cubiertos[i] = false;          
+          ej_cubiertos = new long[Utils.NumWords(neje)];
+          for(int i=0; i<ej_cubiertos.length; i++)
+            ej_cubiertos[i] = 0;
       }
 
       
@@ -82,8 +82,8 @@ public class Population {
               indivi[j].RndInitInd(Variables, porcVar, neje, nFile);
           }
 
-          for(i=0; i<neje; i++)
-            ej_cubiertos[i] = false;
+          for(i=0; i<ej_cubiertos.length; i++)
+            ej_cubiertos[i] = 0;
           
           
       }
@@ -91,7 +91,10 @@ public class Population {
 
      /**
       * <p>
-      * Evaluates non-evaluated individuals
+      * Evaluates non-evaluated individuals. If the genetic algorithm has an
+      * evaluation cache, the repeated chromosomes take their evaluation from
+      * it. They are counted as evaluations anyway, so the evolution does not
+      * depend on the cache
       * </p>
       * @param AG                   Genetic algorithm
       * @param Variables            Variables structure
@@ -104,15 +107,18 @@ public class Population {
 
           for (int i=0; i<AG.getLengthPopulation(); i++) {
               if (!getIndivEvaluated(i)) {     // Not evaluated
-                  indivi[i].evalInd (AG, Variables, Examples);
+                  EvalCache cache = AG.getCache(Examples);
+                  if (cache == null || !cache.get(indivi[i], AG, Variables, Examples)) {
+                      indivi[i].evalInd (AG, Variables, Examples);
+                      if (cache != null)
+                          cache.put(indivi[i], AG, Variables);
+                  }
                   setIndivEvaluated(i,true);   /* Now it is evaluated */
                   indivi[i].setNEval(AG.getTrials()+trials);
                   trials++;
               }
-              for (int j=0; j<Examples.getNEx(); j++){
-                  if(indivi[i].getIndivCovered(j)==true){
-                      ej_cubiertos[j]=true;
-                  }
+              for (int j=0; j<ej_cubiertos.length; j++){
+                  ej_cubiertos[j] |= indivi[i].cubre[j];
               }
           }
           //Update examples covered in the population
@@ -152,6 +158,22 @@ public class Population {
       }
 
       
+      /**
+       * <p>
+       * Resets all the individuals of the population to the state of newly
+       * created ones, without allocating new objects
+       * </p>
+       * @param trials         Number of evaluations performed
+       */
+      public void ResetPopulation (int trials){
+
+          for(int i=0; i<ej_cubiertos.length; i++)
+              ej_cubiertos[i] = 0;
+          for(int i=0; i<num_indiv; i++)
+              indivi[i].resetIndiv(trials);
+
+      }
+
       /**
        * <p>
        * Copy the population
@@ -163,10 +185,9 @@ public class Population {
           
           //private Individual indivi [];     // Population individuals
           //private int num_indiv;           // Max number of individuals in the population
-          //public boolean ej_cubiertos[];   // Covered examples of the population
           
           this.setNumIndiv(poblacion.getNumIndiv());
-          for(int i=0; i<neje; i++){
+          for(int i=0; i<ej_cubiertos.length; i++){
               this.ej_cubiertos[i] = poblacion.ej_cubiertos[i];
           }
           for(int i=0; i<getNumIndiv(); i++){
@@ -3,35 +3,52 @@ import java.util.*;
 
 public class Randomize {
 	private static long Seed;
-	private static MTwister generador = new MTwister();
+	private static final MTwister comun = new MTwister();
+	// Generator of each thread. All the threads share the common one unless they set their own
+	private static final ThreadLocal<MTwister> generador = new ThreadLocal<MTwister>() {
+		@Override
+		protected MTwister initialValue() {
+			return comun;
+		}
+	};
         public  static int calls = 0;
 	public static void setSeed (long semilla) {
 		Seed = semilla;
-		generador.init_genrand(Seed);
+		generador.get().init_genrand(Seed);
+	}
+	/** Sets the generator used by the calling thread, so that concurrent tasks
+	 * (for example the islands of the genetic algorithm) draw reproducible sequences
+	 * @param gen Generator of the calling thread, or null to use the common one again
+	 */
+	public static void setGenerator (MTwister gen) {
+		if (gen == null)
+			generador.remove();
+		else
+			generador.set(gen);
 	}
 	/** Rand computes a psuedo-random float value between 0 and 1, excluding 1 
 	 * @return A uniform-distributed real value in [0,1) 
 	 */
 	public static double Rand () {
-		return (generador.genrand_res53());
+		return (generador.get().genrand_res53());
 	}
 	/** RandOpen computes a psuedo-random float value between 0 and 1, excluding 0 and 1  
 	 * @return A uniform-distributed real value in (0,1)
 	 */
 	public static double RandOpen () {
-		return (generador.genrand_real3());
+		return (generador.get().genrand_real3());
 	}
 	/** RandClosed computes a psuedo-random float value between 0 and 1 inclusive  
 	 * @return A uniform-distributed real value in [0,1]
 	 */
 	public static double RandClosed () {
-		return (generador.genrand_real1());
+		return (generador.get().genrand_real1());
 	}
 	/** RandGaussian generates a standardized gaussian random number  
 	 * @return A normal-distributed real value with mean 0 and standard deviation equal to 1
 	 */
 	public static double RandGaussian () {
-		return (generador.genrand_gaussian());
+		return (generador.get().genrand_gaussian());
 	}
 
 	/** Randint gives an integer value between low and high, excluding high
@@ -41,7 +58,7 @@ public class Randomize {
 	 */
 	public static int Randint (int low, int high) {
             calls++;
-            int value = ((int) (low + (high - low) * generador.genrand_res53()));
+            int value = ((int) (low + (high - low) * generador.get().genrand_res53()));
             //System.out.println(value);
             return value;
 	}
@@ -53,7 +70,7 @@ public class Randomize {
 	public static int RandintOpen (int low, int high) {
 		//we use low+1, to avoid that "low" could appear, since genrand_res53()
 		//draws a real value in [0,1)
-		return ((int) ((low+1) + (high - (low+1)) * generador.genrand_res53()));
+		return ((int) ((low+1) + (high - (low+1)) * generador.get().genrand_res53()));
 	}
 	/** RandintClosed gives an integer value between low and high inclusive
 	 * @param low Lower bound (included)
@@ -64,7 +81,7 @@ public class Randomize {
 		//since genrand_res53() generates a double in [0,1), we increment
 		//high by one, so "high" can appear with same probability as the rest of
 		//numbers in the interval
-		return ((int) (low + ((high+1) - low) * generador.genrand_res53()));
+		return ((int) (low + ((high+1) - low) * generador.get().genrand_res53()));
 	}
 	/** Randdouble gives an double value between low and high, excluding high
 	 * @param low Lower bound (included)
@@ -73,7 +90,7 @@ public class Randomize {
 	 */
 	public static double Randdouble (double low, double high) {
             calls++;
-		return (low + (high-low) * generador.genrand_res53());
+		return (low + (high-low) * generador.get().genrand_res53());
 	}
 	/** RanddoubleOpen gives an double value between low and high, excluding low and high
 	 * @param low Lower bound (NOT included)
@@ -81,7 +98,7 @@ public class Randomize {
 	 * @return A uniform-distributed real value in (low,high)
 	 */
 	public static double RanddoubleOpen (double low, double high) {
-		return (low + (high-low) * generador.genrand_real3());
+		return (low + (high-low) * generador.get().genrand_real3());
 	}
 	/** RanddoubleClosed gives an double value between low and high inclusive
 	 * @param low Lower bound (included)
@@ -89,7 +106,7 @@ public class Randomize {
 	 * @return A uniform-distributed real value in [low,high]
 	 */
 	public static double RanddoubleClosed (double low, double high) {
-		return (low + (high-low) * generador.genrand_real1());
+		return (low + (high-low) * generador.get().genrand_real1());
 	}
 }
 
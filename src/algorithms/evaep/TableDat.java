@@ -25,6 +25,17 @@ public class TableDat {
     private int total_ej_cubiertos;         // Total covered examples
     private int total_ej_cubiertos_clase;   // Total covered examples for class
 
+    private int[][] interv;         // Label with the greatest membership degree for each example and variable
+
+    private int n_palabras;         // Number of 64-bit words of the sets of examples
+    private long[] ej_todos;        // Set with all the examples of the dataset
+    private long[] ej_cubiertos;    // Set of covered examples
+    private long[][] ej_clase;      // Set of examples of each class
+    private long[][][] ej_etiq;     // Set of examples whose value (discrete) or interval (continuous) is each label of each variable
+    private long[][] ej_perdidos;   // Set of examples with lost value for each variable
+
+    private boolean muestra = false;    // The table is a sample of the examples of another one
+
     /**
      * <p>
      * Returns the number of examples of the DataSet
@@ -114,6 +125,8 @@ public class TableDat {
         n_eje = Data.getNumInstances();            // Set Sthe number of examples (instances) of the dataset
         EjClase = new int[Variables.getNClass()];  // Creates space to store the number of examples of each class
         dat = new TypeDat[n_eje];                  // Creates the structure to store the data
+        n_palabras = Utils.NumWords(n_eje);        // Creates the set of covered examples
+        ej_cubiertos = new long[n_palabras];
 
         // Initializes to 0 the number of examples of each class
         for (int i=0; i<Variables.getNClass(); i++)
@@ -156,6 +169,162 @@ public class TableDat {
     }
 
 
+    /**
+     * <p>
+     * Computes the interval of every example for each variable: the fuzzy
+     * label with the greatest membership degree for the continuous variables.
+     * The fuzzy partitions of TableVar are fixed for the whole run, so the
+     * intervals are computed once after the semantics are initialised
+     * </p>
+     * @param Variables     Variables structure of the dataset
+     */
+    public void InitIntervals (TableVar Variables) {
+        int num_vars = Variables.getNVars();
+
+        interv = new int[n_eje][num_vars];
+
+        for (int i=0; i<n_eje; i++) {
+            for (int j=0; j<num_vars; j++) {
+                if (Variables.getContinuous(j)) {
+                    float valor = dat[i].getDat(j);
+                    float max_pert = 0;
+                    interv[i][j] = -1;
+                    for (int k=0; k<Variables.getNLabelVar(j); k++) {
+                        float pert = Variables.Fuzzy(j, k, valor);
+                        if (pert>max_pert) {
+                            interv[i][j] = k;
+                            max_pert = pert;
+                        }
+                    }
+                }
+                else
+                    interv[i][j] = (int) dat[i].getDat(j);
+            }
+        }
+    }
+
+
+    /**
+     * <p>
+     * Returns the interval of the variable to which the example belongs: the
+     * label with the greatest membership degree for continuous variables, or
+     * the value itself for discrete ones
+     * </p>
+     * @param numEj     Position of the example
+     * @param pos       Position of the variable
+     * @return          Number of the interval
+     */
+    public int getInterv (int numEj, int pos) {
+        return interv[numEj][pos];
+    }
+
+
+    /**
+     * <p>
+     * Builds the sets of examples used in the crisp evaluation of the rules:
+     * the examples of each class and, for each variable, the examples of each
+     * label and those with lost value. Each set stores one example per bit, so
+     * the coverage of a rule is computed a word at a time. Must be called after
+     * InitIntervals
+     * </p>
+     * @param Variables     Variables structure of the dataset
+     */
+    public void InitExampleSets (TableVar Variables) {
+        int num_vars = Variables.getNVars();
+
+        ej_todos = new long[n_palabras];
+        for (int i=0; i<n_eje; i++)
+            ej_todos[i >>> 6] |= (1L << i);
+
+        ej_clase = new long[Variables.getNClass()][n_palabras];
+        for (int i=0; i<n_eje; i++)
+            ej_clase[dat[i].getClas()][i >>> 6] |= (1L << i);
+
+        ej_etiq = new long[num_vars][][];
+        ej_perdidos = new long[num_vars][n_palabras];
+        for (int j=0; j<num_vars; j++) {
+            ej_etiq[j] = new long[Variables.getNLabelVar(j)][n_palabras];
+            for (int i=0; i<n_eje; i++) {
+                if (getLost(Variables, i, j))
+                    ej_perdidos[j][i >>> 6] |= (1L << i);
+                else if (interv[i][j]>=0 && interv[i][j]<Variables.getNLabelVar(j))
+                    ej_etiq[j][interv[i][j]][i >>> 6] |= (1L << i);
+            }
+        }
+    }
+
+
+    /**
+     * <p>
+     * Returns the number of 64-bit words of the sets of examples
+     * </p>
+     * @return          Number of words
+     */
+    public int getNWords () {
+        return n_palabras;
+    }
+
+
+    /**
+     * <p>
+     * Returns the set with all the examples of the dataset
+     * </p>
+     * @return          Set of examples
+     */
+    public long[] getAllSet () {
+        return ej_todos;
+    }
+
+
+    /**
+     * <p>
+     * Returns the set of examples covered
+     * </p>
+     * @return          Set of examples
+     */
+    public long[] getCoveredSet () {
+        return ej_cubiertos;
+    }
+
+
+    /**
+     * <p>
+     * Returns the set of examples of the class
+     * </p>
+     * @param clas      A value of the target variable
+     * @return          Set of examples
+     */
+    public long[] getClassSet (int clas) {
+        return ej_clase[clas];
+    }
+
+
+    /**
+     * <p>
+     * Returns the set of examples whose value (discrete variables) or interval
+     * (continuous variables) is the label indicated
+     * </p>
+     * @param pos       Position of the variable
+     * @param label     Label of the variable
+     * @return          Set of examples
+     */
+    public long[] getLabelSet (int pos, int label) {
+        return ej_etiq[pos][label];
+    }
+
+
+    /**
+     * <p>
+     * Returns the set of examples with lost value in the variable
+     * </p>
+     * @param pos       Position of the variable
+     * @return          Set of examples
+     */
+    public long[] getLostSet (int pos) {
+        return ej_perdidos[pos];
+    }
+
+
     /**
      * <p>
      * Returns the class of the example in position pos
@@ -186,7 +355,7 @@ public class TableDat {
      * @return          State of the example
      */
     public boolean getCovered (int pos) {
-        return dat[pos].getCovered();
+        return (ej_cubiertos[pos >>> 6] & (1L << pos)) != 0;
     }
 
     /**
@@ -197,7 +366,10 @@ public class TableDat {
      * @param val       Value of the state of the example
      */
     public void setCovered (int pos, boolean val) {
-        dat[pos].setCovered(val);
+        if (val)
+            ej_cubiertos[pos >>> 6] |= (1L << pos);
+        else
+            ej_cubiertos[pos >>> 6] &= ~(1L << pos);
     }
 
 
@@ -263,4 +435,82 @@ public class TableDat {
     public TableDat() {
     }
 
+
+    /**
+     * <p>
+     * Creates a copy of TableDat with its own covered examples and target
+     * class. The examples, their intervals and the sets of examples are
+     * shared, as they are not modified once loaded
+     * </p>
+     * @param other         TableDat to copy
+     */
+    public TableDat(TableDat other) {
+        n_eje = other.n_eje;
+        dat = other.dat;
+        EjClase = other.EjClase;
+        ej_clase_obj = other.ej_clase_obj;
+        total_ej_cubiertos = other.total_ej_cubiertos;
+        total_ej_cubiertos_clase = other.total_ej_cubiertos_clase;
+        interv = other.interv;
+        n_palabras = other.n_palabras;
+        ej_todos = other.ej_todos;
+        ej_cubiertos = other.ej_cubiertos.clone();
+        ej_clase = other.ej_clase;
+        ej_etiq = other.ej_etiq;
+        ej_perdidos = other.ej_perdidos;
+        muestra = other.muestra;
+    }
+
+
+    /**
+     * <p>
+     * Creates a sample of TableDat with the examples indicated. The examples,
+     * their intervals and their covered state are taken from the
+     * other table, while the counts of examples and the sets of examples are
+     * built for the sample, so the evaluation of an individual on it costs in
+     * proportion to its size
+     * </p>
+     * @param other         TableDat to sample
+     * @param Variables     Variables structure of the dataset
+     * @param ejemplos      Positions in "other" of the examples of the sample
+     */
+    public TableDat(TableDat other, TableVar Variables, int[] ejemplos) {
+        n_eje = ejemplos.length;
+        n_palabras = Utils.NumWords(n_eje);
+        dat = new TypeDat[n_eje];
+        interv = new int[n_eje][];
+        EjClase = new int[Variables.getNClass()];
+        ej_cubiertos = new long[n_palabras];
+        total_ej_cubiertos = 0;
+        total_ej_cubiertos_clase = 0;
+        muestra = true;
+
+        for (int i=0; i<n_eje; i++) {
+            int ej = ejemplos[i];
+            dat[i] = other.dat[ej];
+            interv[i] = other.interv[ej];
+            EjClase[dat[i].getClas()]++;
+            if (other.getCovered(ej)) {
+                setCovered(i, true);
+                total_ej_cubiertos++;
+                if (dat[i].getClas() == Variables.getNumClassObj())
+                    total_ej_cubiertos_clase++;
+            }
+        }
+        ej_clase_obj = EjClase[Variables.getNumClassObj()];
+
+        InitExampleSets(Variables);
+    }
+
+
+    /**
+     * <p>
+     * Returns if the table is a sample of the examples of another one
+     * </p>
+     * @return          True for a sample
+     */
+    public boolean isSample () {
+        return muestra;
+    }
+
 }
@@ -270,34 +270,34 @@ public class TableVar {
      * Fill TableVar with the characteristics of the variables and creates
      * characteristics and intervals for the fuzzy sets
      * </p>
-     * @param size          Number of variables of the dataset
+     * @param Atributos     Definition of the attributes of the dataset
      */
-    public  void Load(int size) {
-        num_vars = size;  // Stores the number of variables of the dataset
+    public  void Load(InstanceAttributes Atributos) {
+        num_vars = Atributos.getInputNumAttributes();  // Stores the number of variables of the dataset
         var = new TypeVar[num_vars];   // Creates space for the structure
 
         // For each variable of the dataset
         for (int i=0; i<num_vars; i++) {
             var[i] = new TypeVar();  // Creates space for the variable chars
-            var[i].setName (Attributes.getInputAttribute(i).getName());
+            var[i].setName (Atributos.getInputAttribute(i).getName());
 
-            if (Attributes.getInputAttribute(i).getType()==Attribute.NOMINAL) {
+            if (Atributos.getInputAttribute(i).getType()==Attribute.NOMINAL) {
                 var[i].setType ('e');
                 var[i].setContinuous(false);
-                var[i].initValues (Attributes.getInputAttribute(i).getNominalValuesList());
+                var[i].initValues (Atributos.getInputAttribute(i).getNominalValuesList());
                 var[i].setMin(0);     // Enumerated values are translated into values from 0 to number of elements - 1
-                var[i].setMax(Attributes.getInputAttribute(i).getNumNominalValues()-1);
-                var[i].setNLabels (Attributes.getInputAttribute(i).getNumNominalValues());
+                var[i].setMax(Atributos.getInputAttribute(i).getNumNominalValues()-1);
+                var[i].setNLabels (Atributos.getInputAttribute(i).getNumNominalValues());
                 // Update max number of values for discrete vars
                 if (var[i].getNLabels() > MaxValores)
                     MaxValores = var[i].getNLabels();
             }
-            else if (Attributes.getInputAttribute(i).getType()==Attribute.REAL) {
+            else if (Atributos.getInputAttribute(i).getType()==Attribute.REAL) {
                 // Real: Continuous type
                 var[i].setType ('r');
                 var[i].setContinuous (true);
-                var[i].setMin ((float)Attributes.getInputAttribute(i).getMinAttribute());
-                var[i].setMax ((float)Attributes.getInputAttribute(i).getMaxAttribute());
+                var[i].setMin ((float)Atributos.getInputAttribute(i).getMinAttribute());
+                var[i].setMax ((float)Atributos.getInputAttribute(i).getMaxAttribute());
                 var[i].setNLabels (n_etiq);
                 // Update the max number of labels for cont variables and number of values
                 if (var[i].getNLabels() > MaxEtiquetas)
@@ -308,26 +308,26 @@ public class TableVar {
             else {
                 // Integer: Continuous type
                 var[i].setType ('i');
-                if((Attributes.getInputAttribute(i).getMaxAttribute()-Attributes.getInputAttribute(i).getMinAttribute() <= 10) && 
-                        (Attributes.getInputAttribute(i).getMinAttribute()>0)){
+                if((Atributos.getInputAttribute(i).getMaxAttribute()-Atributos.getInputAttribute(i).getMinAttribute() <= 10) && 
+                        (Atributos.getInputAttribute(i).getMinAttribute()>0)){
                     var[i].setType ('e');
                     var[i].setContinuous(false);
                     Vector v = new Vector();
                     int aux=0;
-                    for(int ii=(int) Attributes.getInputAttribute(i).getMinAttribute(); ii<=(int)Attributes.getInputAttribute(i).getMaxAttribute(); ii++){
-                        v.add(aux, (int)Attributes.getInputAttribute(i).getMinAttribute()+aux);
+                    for(int ii=(int) Atributos.getInputAttribute(i).getMinAttribute(); ii<=(int)Atributos.getInputAttribute(i).getMaxAttribute(); ii++){
+                        v.add(aux, (int)Atributos.getInputAttribute(i).getMinAttribute()+aux);
                     }
                     var[i].initValues (v);
                     var[i].setMin(0);     // Enumerated values are translated into values from 0 to number of elements - 1
-                    var[i].setMax((float) Attributes.getInputAttribute(i).getMaxAttribute()-1);
-                    var[i].setNLabels ((int) Attributes.getInputAttribute(i).getMaxAttribute());
+                    var[i].setMax((float) Atributos.getInputAttribute(i).getMaxAttribute()-1);
+                    var[i].setNLabels ((int) Atributos.getInputAttribute(i).getMaxAttribute());
                     // Update max number of values for discrete vars
                     if (var[i].getNLabels() > MaxValores)
                         MaxValores = var[i].getNLabels();
                 } else {
                     var[i].setContinuous (true);
-                    var[i].setMin ((float)Attributes.getInputAttribute(i).getMinAttribute());
-                    var[i].setMax ((float)Attributes.getInputAttribute(i).getMaxAttribute());
+                    var[i].setMin ((float)Atributos.getInputAttribute(i).getMinAttribute());
+                    var[i].setMax ((float)Atributos.getInputAttribute(i).getMaxAttribute());
                     var[i].setNLabels (n_etiq);
                     // Update the max number of labels for cont variables and number of values
                     if (var[i].getNLabels() > MaxEtiquetas)
@@ -582,4 +582,27 @@ public class TableVar {
     public TableVar() {
     }
 
+
+    /**
+     * <p>
+     * Creates a copy of TableVar with its own target class. The definitions of
+     * the variables and the fuzzy sets are shared, as they are not modified
+     * once loaded
+     * </p>
+     * @param other         TableVar to copy
+     */
+    public TableVar(TableVar other) {
+        num_vars = other.num_vars;
+        n_etiq = other.n_etiq;
+        MaxEtiquetas = other.MaxEtiquetas;
+        MaxValores = other.MaxValores;
+        n_clases = other.n_clases;
+        clase_obj = other.clase_obj;
+        nclase_obj = other.nclase_obj;
+        var = other.var;
+        BaseDatos = other.BaseDatos;
+        GI = other.GI;
+        intervalosGI = other.intervalosGI;
+    }
+
 }
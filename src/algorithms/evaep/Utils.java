@@ -124,6 +124,18 @@ public class Utils {
     }
 
 
+    /**
+     * <p>
+     * Returns the number of 64-bit words needed to store a set of elements
+     * </p>
+     * @param n         Number of elements of the set
+     * @return          Number of words
+     */
+    public static int NumWords (int n) {
+        return (n + 63) >>> 6;
+    }
+
+
     /**
      * <p>
      * Returns if the first float argument is better than the second
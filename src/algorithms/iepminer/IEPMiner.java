@@ -31,12 +31,15 @@ import framework.items.NominalItem;
 import framework.items.Pattern;
 import framework.utils.Utils;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Stack;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
 import keel.Dataset.Instance;
 import keel.Dataset.InstanceSet;
 import sun.misc.Queue;
@@ -49,12 +52,10 @@ import sun.misc.Queue;
  */
 public class IEPMiner extends Model {
 
-    private PTree root;
-    private ArrayList<Pattern> trainingInstances;
-    private ArrayList<Pattern> patternSet;
     private int minimumSupport;
     private double minimumGrowthRate;
     private double minimumChiSquared;
+    private boolean parallelBranches;
 
     @Override
     public void learn(InstanceSet training, HashMap<String, String> params) {
@@ -64,43 +65,69 @@ public class IEPMiner extends Model {
             minimumSupport = (int) (training.getNumInstances() * Float.parseFloat(params.get("Minimum Support")));
             minimumGrowthRate = Double.parseDouble(params.get("Minimum Growth Rate"));
             minimumChiSquared = Double.parseDouble(params.get("Minimum Chi-Squared"));
+            parallelBranches = !"sequential".equals(params.get("Branch Mining"));
 
             // Algorithm begin
-            PTree.headerTable = new ArrayList<>();
             int numClasses = training.getAttributeDefinitions().getOutputAttribute(0).getNumNominalValues();
-            trainingInstances = new ArrayList<>();
-            patternSet = new ArrayList<>();
 
-            // Mine patterns for each class
-            long t_start = System.currentTimeMillis();
-            for (int i = 0; i < numClasses; i++) {
-                System.out.println("Mining class " + (i + 1) + " of " + numClasses);
-                // gets the training instances
-                trainingInstances.clear();
-                root = new PTree(null, true);
-                for (Instance inst : training.getInstances()) {
-                    Pattern p = new Pattern(new ArrayList<Item>(), inst.getOutputNominalValuesInt(0) == i ? 0 : 1);
-                    for (int j = 0; j < training.getAttributeDefinitions().getInputNumAttributes(); j++) {
-                        if (!inst.getInputMissingValues(j)) {
-                            p.add(new NominalItem(training.getAttributeDefinitions().getAttribute(j).getName(), inst.getInputNominalValues(j)));
+            // Gets the items of the dataset, sorted in lexicographical order, and
+            // translates the instances into arrays of item identifiers. This is done
+            // once and shared by the trees of all the classes.
+            HashMap<Item, Integer> ids = new HashMap<>();
+            ArrayList<Item> itemList = new ArrayList<>();
+            for (Instance inst : training.getInstances()) {
+                for (int j = 0; j < training.getAttributeDefinitions().getInputNumAttributes(); j++) {
+                    if (!inst.getInputMissingValues(j)) {
+                        Item it = new NominalItem(training.getAttributeDefinitions().getAttribute(j).getName(), inst.getInputNominalValues(j));
+                        if (ids.putIfAbsent(it, -1) == null) {
+                            itemList.add(it);
                         }
                     }
-                    trainingInstances.add(p);
                 }
-                long t_ini = System.currentTimeMillis();
-                for (Pattern p : trainingInstances) {
-                    root.insertTree(p);
+            }
+            itemList.sort((o1, o2) -> {
+                return o1.compareTo(o2);
+            });
+            final Item[] items = itemList.toArray(new Item[itemList.size()]);
+            for (int i = 0; i < items.length; i++) {
+                ids.put(items[i], i);
+            }
+            final int[][] transactions = new int[training.getNumInstances()][];
+            final int[] classes = new int[training.getNumInstances()];
+            for (int t = 0; t < training.getNumInstances(); t++) {
+                Instance inst = training.getInstance(t);
+                int[] aux = new int[training.getAttributeDefinitions().getInputNumAttributes()];
+                int length = 0;
+                for (int j = 0; j < aux.length; j++) {
+                    if (!inst.getInputMissingValues(j)) {
+                        aux[length++] = ids.get(new NominalItem(training.getAttributeDefinitions().getAttribute(j).getName(), inst.getInputNominalValues(j)));
+                    }
+                }
+                transactions[t] = Arrays.copyOf(aux, length);
+                Arrays.sort(transactions[t]);
+                classes[t] = inst.getOutputNominalValuesInt(0);
+            }
+
+            // Mine patterns for each class. Each class builds and mines its own tree,
+            // so the classes are mined concurrently and the results are added in class order.
+            long t_start = System.currentTimeMillis();
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(numClasses, Runtime.getRuntime().availableProcessors()));
+            ArrayList<Future<ArrayList<Pattern>>> tasks = new ArrayList<>();
+            for (int i = 0; i < numClasses; i++) {
+                final int clase = i;
+                tasks.add(pool.submit(() -> mineClass(items, transactions, classes, clase, numClasses)));
+            }
+            try {
+                for (Future<ArrayList<Pattern>> task : tasks) {
+                    super.patterns.addAll(task.get());
                 }
-                System.out.println("Time to build the tree: " + (System.currentTimeMillis() - t_ini) / 1000f + " seconds.");
-                t_ini = System.currentTimeMillis();
-                mineTree(root, i);
-                System.out.println("Time to mine the tree: " + (System.currentTimeMillis() - t_ini) / 1000f + " seconds.");
-                //ArrayList<Pattern> iEPs = pruneEPs(patternSet);
-                super.patterns.addAll(patternSet);
-                //iEPs.clear();
-                patternSet.clear();
-                PTree.cleanLinks(-1);
-                PTree.headerTable.clear();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while mining the classes", ex);
+            } catch (ExecutionException ex) {
+                throw new RuntimeException("Error in the mining of the classes", ex);
+            } finally {
+                pool.shutdown();
             }
             System.out.println("Time to finish mining: " + (System.currentTimeMillis() - t_start) / 1000f + " seconds.");
             super.setPatterns(pruneEPs(super.patterns));
@@ -110,6 +137,31 @@ public class IEPMiner extends Model {
         }
     }
 
+    /**
+     * Builds the P-Tree of the given class (as D1, the rest of classes as D2)
+     * and mines it.
+     *
+     * @param items The items of the dataset, sorted in lexicographical order
+     * @param transactions The instances, as sorted arrays of item identifiers
+     * @param classes The class of each instance
+     * @param clase The class to mine
+     * @param numClasses The number of classes
+     * @return The patterns found for the class
+     */
+    private ArrayList<Pattern> mineClass(Item[] items, int[][] transactions, int[] classes, int clase, int numClasses) {
+        System.out.println("Mining class " + (clase + 1) + " of " + numClasses);
+        long t_ini = System.currentTimeMillis();
+        PTree root = new PTree(items);
+        for (int t = 0; t < transactions.length; t++) {
+            root.insertTree(transactions[t], classes[t] == clase ? 0 : 1);
+        }
+        System.out.println("Time to build the tree: " + (System.currentTimeMillis() - t_ini) / 1000f + " seconds.");
+        t_ini = System.currentTimeMillis();
+        ArrayList<Pattern> patternSet = mineTree(root, clase);
+        System.out.println("Time to mine the tree: " + (System.currentTimeMillis() - t_ini) / 1000f + " seconds.");
+        return patternSet;
+    }
+
     /**
      * It returns whether the given pattern is an iEP for the mining process.
      * NOTE: It does not check condition 3 and 4 !
@@ -170,29 +222,24 @@ public class IEPMiner extends Model {
      * Public function to mine root tree
      *
      * @param root
+     * @param clase The class of the patterns
+     * @return The patterns found in the tree
      */
-    public void mineTree(PTree root, int clase) {
-        for (int i = PTree.headerTable.size() - 1; i >= 0; i--) {
-            ArrayList<Item> its = new ArrayList<>();
-            its.add(PTree.headerTable.get(i).item);
-            Pattern beta = new Pattern(its, clase);
+    public ArrayList<Pattern> mineTree(PTree root, int clase) {
+        if (parallelBranches) {
+            return mineTreeParallel(root, clase);
+        }
+        ArrayList<Pattern> patternSet = new ArrayList<>();
+        // The items of the pattern being mined
+        int[] prefix = new int[root.numItems()];
+        for (int i = root.numItems() - 1; i >= 0; i--) {
+            prefix[0] = i;
             // gets the counts for D1 and D2 for the header table to get support and gr.
-            double D1 = ((Integer) PTree.headerTable.get(i).count1).doubleValue();
-            double D2 = ((Integer) PTree.headerTable.get(i).count2).doubleValue();
-            double gr;
-            if (D1 != 0.0 && D2 == 0.0) {
-                gr = Double.POSITIVE_INFINITY;
-            } else if (D1 == 0.0 && D2 == 0.0) {
-                gr = 0;
-            } else {
-                gr = D1 / D2;
-            }
-            HashMap<String, Double> measures = new HashMap<>();
-            measures.put("GR", gr);
-            measures.put("SUPP", D1);
-            beta.setTra_measures(measures);
-            if (is_iEP(PTree.headerTable.get(i).count1, gr)) {
-                patternSet.add(beta);
+            double D1 = root.getCount1(i);
+            double D2 = root.getCount2(i);
+            double gr = growthRate(D1, D2);
+            if (is_iEP(root.getCount1(i), gr)) {
+                patternSet.add(toPattern(root, prefix, 1, clase, gr, D1));
             }
 
             /*
@@ -201,63 +248,116 @@ public class IEPMiner extends Model {
              2 - growth rate is infinite. This means the pattern is a JEP, so supersets of a JEP are not interesting
              3 - D1 counts < minimum support. This is due to Apriori property. If this pattern is not frequent, supersets of this one are not frequent too.
              */
-            if (gr < Double.POSITIVE_INFINITY && PTree.headerTable.get(i).count1 >= minimumSupport) {
-                mineSubTree(beta);
+            if (gr < Double.POSITIVE_INFINITY && root.getCount1(i) >= minimumSupport) {
+                mineSubTree(root, prefix, 1, clase, patternSet);
             }
         }
+        return patternSet;
     }
 
     /**
      * Private and recursive function to mine the tree
      *
-     * @param node
+     * @param root The tree
+     * @param prefix The items of the pattern to extend, beta
+     * @param length The number of items of beta
+     * @param clase The class of the patterns
+     * @param patternSet The list where the patterns found are added
      */
-    private void mineSubTree(Pattern beta) {
-        Item k = beta.get(beta.length() - 1);
-        int positionItem = PTree.headerTable.indexOf(new HeaderTableEntry(k, null));
+    private void mineSubTree(PTree root, int[] prefix, int length, int clase, ArrayList<Pattern> patternSet) {
+        int k = prefix[length - 1];
         // Adjust the node links of k's subtrees and accumulate counts.
-        PTree node = PTree.headerTable.get(positionItem).headNodeLink;
-        PTree.cleanLinks(positionItem);
-        while (node != null) { // Traverse all nodes with the same item
-            for (int i = 0; i < node.numChildren(); i++) {
-                // Adjust the node-links and counts
-                adjust(node.getChildren(i));
-            }
-            // go to next item
-            node = node.getNode_link();
+        root.cleanLinks(k);
+        root.adjustSubtrees(k);
+        extend(root, prefix, length, root.getCount1(k), root.getCount2(k), clase, patternSet);
+    }
+
+    /**
+     * Mines the tree in the same way than {@link #mineTree(PTree, int)}, but
+     * each top-level branch is mined as an independent fork-join task over
+     * the conditional P-Tree of its item, projected from the tree of the
+     * class. The patterns of each branch are collected in their own list, and
+     * the lists are joined in the order of the branches, so the result is the
+     * same than the sequential one.
+     *
+     * @param root
+     * @param clase The class of the patterns
+     * @return The patterns found in the tree
+     */
+    private ArrayList<Pattern> mineTreeParallel(PTree root, int clase) {
+        ArrayList<ForkJoinTask<ArrayList<Pattern>>> branches = new ArrayList<>();
+        for (int i = root.numItems() - 1; i >= 0; i--) {
+            final int item = i;
+            branches.add(ForkJoinTask.adapt(() -> mineBranch(root, item, clase)));
+        }
+        ForkJoinTask.invokeAll(branches);
+
+        ArrayList<Pattern> patternSet = new ArrayList<>();
+        for (ForkJoinTask<ArrayList<Pattern>> branch : branches) {
+            patternSet.addAll(branch.join());
+        }
+        return patternSet;
+    }
+
+    /**
+     * Mines a top-level item of the header table: the item itself and, on the
+     * tree projected on it, its extensions.
+     *
+     * @param root The P-tree of the class, which is only read
+     * @param item The item of the header table
+     * @param clase The class
+     * @return The patterns of the branch of the item
+     */
+    private ArrayList<Pattern> mineBranch(PTree root, int item, int clase) {
+        ArrayList<Pattern> patternSet = new ArrayList<>();
+        int[] prefix = new int[root.numItems()];
+        prefix[0] = item;
+        double D1 = root.getCount1(item);
+        double D2 = root.getCount2(item);
+        double gr = growthRate(D1, D2);
+        if (is_iEP(root.getCount1(item), gr)) {
+            patternSet.add(toPattern(root, prefix, 1, clase, gr, D1));
+        }
+        if (gr < Double.POSITIVE_INFINITY && root.getCount1(item) >= minimumSupport) {
+            extend(root.project(item), prefix, 1, root.getCount1(item), root.getCount2(item), clase, patternSet);
         }
+        return patternSet;
+    }
 
-        for (int j = PTree.headerTable.size() - 1; j > positionItem; j--) {
+    /**
+     * Extends the pattern beta with each item of the header table greater than
+     * its last item, whose counts in the header table must be conditioned on
+     * beta, and mines recursively the extensions that pass the pruning.
+     *
+     * @param root The tree
+     * @param prefix The items of the pattern to extend, beta
+     * @param length The number of items of beta
+     * @param countX1 The count of beta in D1
+     * @param countX2 The count of beta in D2
+     * @param clase The class of the patterns
+     * @param patternSet The list where the patterns found are added
+     */
+    private void extend(PTree root, int[] prefix, int length, int countX1, int countX2, int clase, ArrayList<Pattern> patternSet) {
+        int k = prefix[length - 1];
+        for (int j = root.numItems() - 1; j > k; j--) {
             // gamma = beta U j
-            Pattern gamma = beta.clone();
-            gamma.add(PTree.headerTable.get(j).item);
+            prefix[length] = j;
 
             // Check if gamma is an iEP
-            double D1 = ((Integer) PTree.headerTable.get(j).count1).doubleValue();
-            double D2 = ((Integer) PTree.headerTable.get(j).count2).doubleValue();
-            double gr;
-            if (D1 != 0.0 && D2 == 0.0) {
-                gr = Double.POSITIVE_INFINITY;
-            } else if (D1 == 0.0 && D2 == 0.0) {
-                gr = 0;
-            } else {
-                gr = D1 / D2;
-            }
-            HashMap<String, Double> measures = new HashMap<>();
-            measures.put("GR", gr);
-            measures.put("SUPP", D1);
-            gamma.setTra_measures(measures);
+            double D1 = root.getCount1(j);
+            double D2 = root.getCount2(j);
+            double gr = growthRate(D1, D2);
 
             int[] Y = {(int) D1, (int) D2};
-            int[] X = {PTree.headerTable.get(positionItem).count1, PTree.headerTable.get(positionItem).count2};
-            if (is_iEP(PTree.headerTable.get(j).count1, gr, Y, X)) {
-                patternSet.add(gamma);
+            int[] X = {countX1, countX2};
+            if (is_iEP(root.getCount1(j), gr, Y, X)) {
+                patternSet.add(toPattern(root, prefix, length + 1, clase, gr, D1));
             }
             // if chi(gamma,beta) >= nu the call recursively
 
             // Check chi-squared prunning. However, if the pattern obtained is a JEP, we prune, because non-minimal JEPs are not interesting
             if (chi(Y, X) >= minimumChiSquared && gr != Double.POSITIVE_INFINITY && Y[0] >= minimumSupport) {
-                mineSubTree(gamma);
+                mineSubTree(root, prefix, length + 1, clase, patternSet);
             }
 
         }
@@ -265,36 +365,59 @@ public class IEPMiner extends Model {
     }
 
     /**
-     * Adjust the counts of the header table of the given node, and link at the
-     * last element of it header table node-link list. This is done recursively,
-     * so the entire node subtree is adjusted.
+     * Computes the growth rate from the counts in D1 and D2
      *
-     * @param node The node to adjust
+     * @param D1 The count in D1
+     * @param D2 The count in D2
+     * @return The growth rate
      */
-    private void adjust(PTree node) {
-        // Go down to further processing
-        for (int i = 0; i < node.numChildren(); i++) {
-            adjust(node.getChildren(i));
+    private double growthRate(double D1, double D2) {
+        if (D1 != 0.0 && D2 == 0.0) {
+            return Double.POSITIVE_INFINITY;
+        } else if (D1 == 0.0 && D2 == 0.0) {
+            return 0;
+        } else {
+            return D1 / D2;
         }
-        // Get the header table associated with the node's item
-        int pos = PTree.headerTable.indexOf(new HeaderTableEntry(node.getItem(), null));
-        // Sum the counts in the header table
-        PTree.headerTable.get(pos).count1 += node.getCountD1();
-        PTree.headerTable.get(pos).count2 += node.getCountD2();
-        // link this node on the header table
-        PTree.headerTable.get(pos).addNodeLink(node);
-
     }
 
-    private void adjust2(PTree node) {
-        Stack<PTree> stack1 = new Stack<>();
-        Stack<PTree> stack2 = new Stack<>();
-        stack1.push(node);
-        while (!stack1.empty()) {
-            // TODO
+    /**
+     * Creates the pattern with the given items and training measures
+     *
+     * @param root The tree
+     * @param prefix The identifiers of the items of the pattern
+     * @param length The number of items
+     * @param clase The class of the pattern
+     * @param gr The growth rate of the pattern
+     * @param supp The support of the pattern
+     * @return The pattern
+     */
+    private Pattern toPattern(PTree root, int[] prefix, int length, int clase, double gr, double supp) {
+        ArrayList<Item> its = new ArrayList<>();
+        for (int i = 0; i < length; i++) {
+            its.add(root.getItem(prefix[i]));
         }
+        Pattern p = new Pattern(its, clase);
+        HashMap<String, Double> measures = new HashMap<>();
+        measures.put("GR", gr);
+        measures.put("SUPP", supp);
+        p.setTra_measures(measures);
+        return p;
     }
 
+    /**
+     * Removes the patterns that are a superset of a shorter, not removed,
+     * pattern with a greater or equal growth rate. The patterns are processed
+     * by increasing length, and the ones that are kept are indexed in a prefix
+     * trie over their sorted item identifiers, where each node stores the
+     * greatest growth rate of the patterns ending in it. So, the subsets of a
+     * pattern that are in the trie are found by walking only the branches of
+     * the trie that match its items, instead of comparing it with all the
+     * shorter patterns. The growth rates are the ones computed in the mining.
+     *
+     * @param patternSet The patterns to prune
+     * @return The patterns that are kept, sorted by length
+     */
     private ArrayList<Pattern> pruneEPs(ArrayList<Pattern> patternSet) {
         patternSet.sort((Pattern p1, Pattern p2) -> {
             if (p1.length() > p2.length()) {
@@ -306,69 +429,106 @@ public class IEPMiner extends Model {
             }
         });
 
-        ArrayList<Pattern> newSet = new ArrayList<>();
-        boolean[] marks = new boolean[patternSet.size()];
-
-        // mark patterns to remove 
-        // erase those patterns that are a superset and has a growth rate less than the subset.
+        // Translates the patterns into sorted arrays of item identifiers
+        HashMap<Item, Integer> ids = new HashMap<>();
+        int[][] sets = new int[patternSet.size()][];
         for (int i = 0; i < patternSet.size(); i++) {
-            if (!marks[i]) {
-                Pattern p1 = patternSet.get(i);
-                for (int j = i + 1; j < patternSet.size(); j++) {
-                    Pattern p2 = patternSet.get(j);
-                    if (!marks[j] && p2.length() > p1.length()) {
-                        // if p2 is a superset of pattern p1, compare growthrates
-                        if (p1.covers(p2)) {
-                            if (p1.getTraMeasure("GR") >= p2.getTraMeasure("GR")) {
-                                // if gr(p1) >= gr(p2) it means that p2 is not an iEP.
-                                marks[j] = true;
-                            }
-                        }
-                    }
+            Pattern p = patternSet.get(i);
+            sets[i] = new int[p.length()];
+            for (int j = 0; j < p.length(); j++) {
+                Integer id = ids.get(p.get(j));
+                if (id == null) {
+                    id = ids.size();
+                    ids.put(p.get(j), id);
                 }
+                sets[i][j] = id;
             }
+            Arrays.sort(sets[i]);
         }
 
-        // retrieve those items marked
-        for (int i = 0; i < marks.length; i++) {
-            if (!marks[i]) {
-                newSet.add(patternSet.get(i));
+        ArrayList<Pattern> newSet = new ArrayList<>();
+        TrieNode trie = new TrieNode();
+        int i = 0;
+        while (i < patternSet.size()) {
+            // The patterns of the same length can not remove each other, so
+            // they are added to the trie once all of them are checked.
+            int end = i;
+            while (end < patternSet.size() && patternSet.get(end).length() == patternSet.get(i).length()) {
+                end++;
+            }
+            boolean[] marks = new boolean[end - i];
+            for (int j = i; j < end; j++) {
+                // if gr(p1) >= gr(p2) for a subset p1 of p2, it means that p2 is not an iEP.
+                marks[j - i] = trie.hasSubset(sets[j], 0, patternSet.get(j).getTraMeasure("GR"));
+            }
+            for (int j = i; j < end; j++) {
+                if (!marks[j - i]) {
+                    newSet.add(patternSet.get(j));
+                    trie.insert(sets[j], patternSet.get(j).getTraMeasure("GR"));
+                }
             }
+            i = end;
         }
 
-        /* System.out.println(newSet.size());
-        
-        // check in the reduced patterns set for patterns that accomplish with condition 3
-         patternSet.clear();
-        for (int i = 0; i < newSet.size(); i++) {
-            HashSet<Pattern> set = new HashSet<>();
-            powerSet(newSet.get(i), set);
-            Iterator<Pattern> iterator = set.iterator();
-            boolean mark = true;
-            while (iterator.hasNext() && mark) {
-                Pattern next = iterator.next();
-                int[] counts = getCounts(next);
-                double D1 = ((Integer) counts[0]).doubleValue();
-                double D2 = ((Integer) counts[1]).doubleValue();
-                double gr;
-                if (D1 != 0.0 && D2 == 0.0) {
-                    gr = Double.POSITIVE_INFINITY;
-                } else if (D1 == 0.0 && D2 == 0.0) {
-                    gr = 0;
-                } else {
-                    gr = D1 / D2;
-                }
-                if(newSet.get(i).getTraMeasure("GR") < gr){
-                    mark = false;
+        return newSet;
+    }
+
+    /**
+     * A node of the prefix trie used to find the subsets of a pattern in
+     * {@link #pruneEPs(ArrayList)}
+     */
+    private static class TrieNode {
+
+        /**
+         * The children of the node, by item identifier
+         */
+        private final HashMap<Integer, TrieNode> children = new HashMap<>();
+
+        /**
+         * The greatest growth rate of the patterns ending in this node
+         */
+        private double maxGR = Double.NEGATIVE_INFINITY;
+
+        /**
+         * Inserts a pattern in the trie under this node
+         *
+         * @param set The sorted item identifiers of the pattern
+         * @param gr The growth rate of the pattern
+         */
+        void insert(int[] set, double gr) {
+            TrieNode node = this;
+            for (int id : set) {
+                TrieNode child = node.children.get(id);
+                if (child == null) {
+                    child = new TrieNode();
+                    node.children.put(id, child);
                 }
+                node = child;
             }
-            if(mark){
-                patternSet.add(newSet.get(i));
-            }
+            node.maxGR = Math.max(node.maxGR, gr);
         }
+
+        /**
+         * Returns whether there is a pattern in the trie under this node that
+         * is a subset of {@code set[from..]} and whose growth rate is greater
+         * than or equal to the given one
+         *
+         * @param set The sorted item identifiers of the pattern
+         * @param from The first position of set to consider
+         * @param gr The growth rate of the pattern
+         * @return
          */
-        //return patternSet;
-        return newSet;
+        boolean hasSubset(int[] set, int from, double gr) {
+            for (int i = from; i < set.length; i++) {
+                TrieNode child = children.get(set[i]);
+                if (child != null) {
+                    if (child.maxGR >= gr || child.hasSubset(set, i + 1, gr)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
     }
 
     private boolean is_iEP(int supp, double gr, int[] Y, int[] X) {
@@ -378,33 +538,9 @@ public class IEPMiner extends Model {
         if (gr < minimumGrowthRate) { // Condition 2
             return false;
         }
-        // check condition 4, for each shadow pattern of gamma, checke if chi is greater than the threshold
-        boolean next = true;
-//        for (int i = 0; i < gamma.length() && next; i++) {
-//            Pattern shadow = gamma.clone();
-//            shadow.drop(i);
-//            int[] counts = getCounts(shadow);
-//            double x2 = chi(Y, counts);
-//            if (x2 < minimumChiSquared) {
-//                next = false;
-//            }
-//        }
-        //return next;
         return chi(Y, X) >= minimumChiSquared; // return condition 2
     }
 
-    public int[] getCounts(Pattern p) {
-        int[] counts = new int[2];
-        counts[0] = 0;
-        counts[1] = 0;
-        for (Pattern inst : trainingInstances) {
-            if (p.covers(inst)) {
-                counts[inst.getClase()]++;
-            }
-        }
-        return counts;
-    }
-
  
 
     @Override
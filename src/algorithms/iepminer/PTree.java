@@ -23,13 +23,19 @@
  */
 package algorithms.iepminer;
 
-import framework.items.*;
-import java.util.ArrayList;
+import framework.items.Item;
+import java.util.Arrays;
 
 /**
  * A class to represent the P-Tree structure to efficiently mine emmerging
  * patterns.
  *
+ * The tree is stored in parallel arrays indexed by node, and the items are
+ * represented by integer identifiers given by their lexicographical order.
+ * The children of a node are found by means of a hash table keyed by the pair
+ * (parent, item), and the header table is an array indexed by the item
+ * identifier. Node 0 is the root of the tree. A value of -1 means no node.
+ *
  * @author Ángel M. García Vico <agvico@ujaen.es>
  * @version 1.0
  * @since JDK 1.8
@@ -37,253 +43,364 @@ import java.util.ArrayList;
 public class PTree {
 
     /**
-     * Checks if the node is the root node
+     * The items of the tree, indexed by their identifier. They must be sorted
+     * in lexicographical order.
+     */
+    private final Item[] items;
+
+    /**
+     * The number of nodes of the tree, including the root.
+     */
+    private int numNodes;
+
+    /**
+     * The item identifier of each node (-1 for the root)
      */
-    protected boolean root;
+    private int[] nodeItem;
 
     /**
-     * The item associated with this node. In fact, Item must be always an
-     * instance of NominalItem.
+     * The parent of each node
      */
-    protected Item item;
+    private int[] parent;
 
     /**
      * The number of transactions of D1 represented by the portion of the path
-     * reaching the node
+     * reaching each node
      */
-    protected int countD1;
+    private int[] countD1;
 
     /**
      * The number of transactions of D2 represented by the portion of the path
-     * reaching the node
+     * reaching each node
      */
-    protected int countD2;
+    private int[] countD2;
 
     /**
-     * The children nodes of this one.
+     * The first child of each node
      */
-    private ArrayList<PTree> childrens;
+    private int[] firstChild;
 
     /**
-     * The next node in the tree that contains the same item than this one.
+     * The next sibling of each node
      */
-    protected PTree node_link;
+    private int[] nextSibling;
 
     /**
-     * The header table of node-links
+     * The next node in the tree that contains the same item than each node.
      */
-    public static ArrayList<HeaderTableEntry> headerTable;
+    private int[] nodeLink;
 
     /**
-     * Default constructor
-     *
-     * @param item
-     * @param root
+     * Open addressing hash table with the nodes of the tree (except the root),
+     * keyed by the pair (parent, item)
      */
-    public PTree(Item item, boolean root) {
-        this.childrens = new ArrayList<>();
-        this.countD1 = 0;
-        this.countD2 = 0;
-        this.item = item;
-        this.node_link = null;
-        this.root = root;
-    }
+    private int[] childTable;
 
-    @Override
-    public boolean equals(Object other) {
-        PTree o = (PTree) other;
-        return this.item.equals(o.item);
-    }
+    /**
+     * The counts of each item in D1 in the header table
+     */
+    private final int[] headerCount1;
+
+    /**
+     * The counts of each item in D2 in the header table
+     */
+    private final int[] headerCount2;
 
     /**
-     * Inserts the given instance (viewed as a pattern itself) on the P-Tree
+     * The first node of each item in the header table
+     */
+    private final int[] headNodeLink;
+
+    /**
+     * The last node of each item in the header table
+     */
+    private final int[] tailNodeLink;
+
+    /**
+     * Stack used to traverse subtrees
+     */
+    private int[] stack;
+
+    /**
+     * Creates an empty P-Tree for the given items.
      *
-     * @param pat The pattern to insert
+     * @param items The items, sorted in lexicographical order. The position of
+     * each item is its identifier.
      */
-    public void insertTree(Pattern pat) {
-        // Sorts the items in the pattern by lexycographicall order 
-        // Rememeber that all items are of class NominalItem.
-        pat.getItems().sort((o1, o2) -> {
-            return -1 * o1.compareTo(o2);
-        });
-        insertTree(pat, this);
+    public PTree(Item[] items) {
+        this.items = items;
+        int capacity = 1024;
+        nodeItem = new int[capacity];
+        parent = new int[capacity];
+        countD1 = new int[capacity];
+        countD2 = new int[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        nodeLink = new int[capacity];
+        stack = new int[capacity];
+        childTable = new int[2 * capacity];
+        Arrays.fill(childTable, -1);
+
+        headerCount1 = new int[items.length];
+        headerCount2 = new int[items.length];
+        headNodeLink = new int[items.length];
+        tailNodeLink = new int[items.length];
+        Arrays.fill(headNodeLink, -1);
+        Arrays.fill(tailNodeLink, -1);
+
+        // the root
+        numNodes = 1;
+        nodeItem[0] = -1;
+        parent[0] = -1;
+        firstChild[0] = -1;
+        nextSibling[0] = -1;
+        nodeLink[0] = -1;
     }
 
     /**
-     * Private and recursive function to insert a pattern into the P-Tree
+     * Inserts the given instance on the P-Tree.
      *
-     * @param pat The pattern to insert
-     * @param node The node to introduce an item
+     * @param ids The identifiers of the items of the instance, sorted in
+     * ascending order.
+     * @param clase 0 if the instance belongs to D1, 1 if it belongs to D2
      */
-    private void insertTree(Pattern pat, PTree node) {
-        if (!pat.getItems().isEmpty()) {
-            Pattern p = (Pattern) pat.clone();
-            Item actual = p.get(p.length()-1);
-            int index = -1;
-            boolean newNodeInserted = false;
-            PTree newNode = null;
-            boolean exist = false;
-            // Look on node's children for this item
-            for (int i = 0; i < node.childrens.size() && !exist; i++) {
-                if (node.childrens.get(i).equals(new PTree(actual, false))) {
-                    exist = true;
-                    index = i;
-                }
-            }
-            if (!exist) {
-                // If not exists, adds the node
-                newNode = new PTree(actual, false);
-                //Look the class of the pattern and increment counts
-                if (p.getClase() == 0) {
-                    newNode.countD1++;
+    public void insertTree(int[] ids, int clase) {
+        int node = 0;
+        for (int i = 0; i < ids.length; i++) {
+            int item = ids[i];
+            int child = findChild(node, item);
+            if (child == -1) {
+                child = addChild(node, item);
+                // link the new node in the header table
+                if (headNodeLink[item] == -1) {
+                    headNodeLink[item] = child;
                 } else {
-                    newNode.countD2++;
-                }
-                // Adds the node in the tree
-                node.childrens.add(newNode);
-                // Sort the childrens according to the order
-                node.childrens.sort((PTree o1, PTree o2) -> {
-                    return o1.getItem().compareTo(o2.getItem());
-                });
-                newNodeInserted = true;
-                index = node.childrens.indexOf(newNode);
-            } else {
-                // The item exist, increments its counts
-                //index = node.childrens.indexOf(new PTree(actual, false));
-                if (p.getClase() == 0) {
-                    node.childrens.get(index).countD1++;
-                } else {
-                    node.childrens.get(index).countD2++;
+                    nodeLink[tailNodeLink[item]] = child;
                 }
+                tailNodeLink[item] = child;
             }
-
-            // look if the item exist in the header table
-            if (headerTable.contains(new HeaderTableEntry(actual, null))) {
-                // if exists, increment the global counts
-                int ind = headerTable.indexOf(new HeaderTableEntry(actual, null));
-                if (p.getClase() == 0) {
-                    headerTable.get(ind).count1++;
-                } else {
-                    headerTable.get(ind).count2++;
-                }
-                // and if it is a new node inserted, insert as the last node-link
-                if (newNodeInserted) {
-                    headerTable.get(ind).addNodeLink(newNode);
-                }
+            if (clase == 0) {
+                countD1[child]++;
+                headerCount1[item]++;
             } else {
-                HeaderTableEntry entry;
-                if(newNodeInserted){
-                    entry = new HeaderTableEntry(actual, newNode);
-                } else {
-                    entry = new HeaderTableEntry(actual, node);
-                }
-               entry.count1 += newNode.countD1;
-               entry.count2 += newNode.countD2;
-                // Add the entry in the table
-                headerTable.add(entry);
-                //Sort the table
-                headerTable.sort((o1, o2) -> {
-                    return o1.item.compareTo(o2.item);
-                });
+                countD2[child]++;
+                headerCount2[item]++;
             }
+            node = child;
+        }
+    }
 
-            // Performs the recursive call removing the item of the pattern
-            p.getItems().remove(p.length() - 1);
-            insertTree(p, node.childrens.get(index));
+    /**
+     * Returns the position in the hash table of the child of the node with
+     * the given item, or of the empty slot where it must be inserted.
+     */
+    private int slot(int node, int item) {
+        int mask = childTable.length - 1;
+        int h = (node * 0x9E3779B9 + item) * 0x85EBCA6B;
+        int pos = (h ^ (h >>> 16)) & mask;
+        while (childTable[pos] != -1) {
+            int c = childTable[pos];
+            if (parent[c] == node && nodeItem[c] == item) {
+                break;
+            }
+            pos = (pos + 1) & mask;
         }
+        return pos;
     }
 
     /**
-     * @return the root
+     * Returns the child of the node with the given item, or -1 if it does not
+     * exist.
      */
-    public boolean isRoot() {
-        return root;
+    private int findChild(int node, int item) {
+        return childTable[slot(node, item)];
     }
 
     /**
-     * @return the item
+     * Creates a child of the node with the given item and counts set to 0.
      */
-    public Item getItem() {
-        return item;
+    private int addChild(int node, int item) {
+        if (numNodes == nodeItem.length) {
+            grow();
+        }
+        int child = numNodes++;
+        nodeItem[child] = item;
+        parent[child] = node;
+        countD1[child] = 0;
+        countD2[child] = 0;
+        firstChild[child] = -1;
+        nodeLink[child] = -1;
+        nextSibling[child] = firstChild[node];
+        firstChild[node] = child;
+        childTable[slot(node, item)] = child;
+        return child;
     }
 
     /**
-     * @return the countD1
+     * Doubles the capacity of the arrays of nodes and rebuilds the hash table
      */
-    public int getCountD1() {
-        return countD1;
+    private void grow() {
+        int capacity = nodeItem.length * 2;
+        nodeItem = Arrays.copyOf(nodeItem, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        countD1 = Arrays.copyOf(countD1, capacity);
+        countD2 = Arrays.copyOf(countD2, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        nodeLink = Arrays.copyOf(nodeLink, capacity);
+        stack = new int[capacity];
+        childTable = new int[2 * capacity];
+        Arrays.fill(childTable, -1);
+        for (int c = 1; c < numNodes; c++) {
+            childTable[slot(parent[c], nodeItem[c])] = c;
+        }
     }
 
     /**
-     * @return the countD2
+     * Sets the entries of the header table from {@code startIndex + 1} untill
+     * the end with counts equal to 0 and null node-links
+     *
+     * @param startIndex
      */
-    public int getCountD2() {
-        return countD2;
+    public void cleanLinks(int startIndex) {
+        for (int i = startIndex + 1; i < items.length; i++) {
+            // remove all node links for this item
+            int aux = headNodeLink[i];
+            while (aux != -1) {
+                int aux2 = nodeLink[aux];
+                nodeLink[aux] = -1;
+                aux = aux2;
+            }
+            headNodeLink[i] = -1;
+            tailNodeLink[i] = -1;
+            headerCount1[i] = 0;
+            headerCount2[i] = 0;
+        }
     }
 
     /**
-     * @return the node_link
+     * Adjusts the header table with the subtrees of the children of all the
+     * nodes of the given item: the counts of the nodes are accumulated in the
+     * header table and each node is linked at the end of the node-link list
+     * of its item.
+     *
+     * @param item The identifier of the item
      */
-    public PTree getNode_link() {
-        return node_link;
+    public void adjustSubtrees(int item) {
+        int node = headNodeLink[item];
+        while (node != -1) { // Traverse all nodes with the same item
+            int top = 0;
+            for (int c = firstChild[node]; c != -1; c = nextSibling[c]) {
+                stack[top++] = c;
+            }
+            while (top > 0) {
+                int n = stack[--top];
+                for (int c = firstChild[n]; c != -1; c = nextSibling[c]) {
+                    stack[top++] = c;
+                }
+                int it = nodeItem[n];
+                headerCount1[it] += countD1[n];
+                headerCount2[it] += countD2[n];
+                if (headNodeLink[it] == -1) {
+                    headNodeLink[it] = n;
+                } else {
+                    nodeLink[tailNodeLink[it]] = n;
+                }
+                tailNodeLink[it] = n;
+            }
+            // go to next item
+            node = nodeLink[node];
+        }
     }
 
     /**
-     * @param node_link the node_link to set
+     * Projects the conditional database of the given item into a new P-Tree:
+     * the subtrees of the children of all the nodes of the item are merged
+     * under the root of the new tree, adding the counts of the nodes with the
+     * same path. The header table of the new tree is equal to the one obtained
+     * in this tree with {@code cleanLinks(item)} and
+     * {@code adjustSubtrees(item)}, but this tree is not modified, so the
+     * conditional databases of several items can be projected and mined
+     * concurrently.
+     *
+     * @param item The identifier of the item
+     * @return The conditional P-Tree of the item
      */
-    public void setNode_link(PTree node_link) {
-        this.node_link = node_link;
+    public PTree project(int item) {
+        PTree cond = new PTree(items);
+        // pairs (node of this tree, parent in the new tree) pending to copy
+        int[] pending = new int[2 * numNodes];
+        int node = headNodeLink[item];
+        while (node != -1) {
+            int top = 0;
+            for (int c = firstChild[node]; c != -1; c = nextSibling[c]) {
+                pending[top++] = c;
+                pending[top++] = 0;
+            }
+            while (top > 0) {
+                int dstParent = pending[--top];
+                int n = pending[--top];
+                int it = nodeItem[n];
+                int dst = cond.findChild(dstParent, it);
+                if (dst == -1) {
+                    dst = cond.addChild(dstParent, it);
+                    if (cond.headNodeLink[it] == -1) {
+                        cond.headNodeLink[it] = dst;
+                    } else {
+                        cond.nodeLink[cond.tailNodeLink[it]] = dst;
+                    }
+                    cond.tailNodeLink[it] = dst;
+                }
+                cond.countD1[dst] += countD1[n];
+                cond.countD2[dst] += countD2[n];
+                cond.headerCount1[it] += countD1[n];
+                cond.headerCount2[it] += countD2[n];
+                for (int c = firstChild[n]; c != -1; c = nextSibling[c]) {
+                    pending[top++] = c;
+                    pending[top++] = dst;
+                }
+            }
+            node = nodeLink[node];
+        }
+        return cond;
     }
 
-    
-    
     /**
-     * Removes all subtree of this given node.
+     * @return the number of items of the header table
      */
-    public void clear() {
-        clear(this);
+    public int numItems() {
+        return items.length;
     }
-    
-    
+
     /**
-     * Recursive function to remove all the subtree of this given node
-     * @param node 
+     * @param id The identifier of the item
+     * @return the item
      */
-    private void clear(PTree node) {
-        // Go down to a leaf node.
-        if (!node.childrens.isEmpty()) {
-           for(int i = 0; i < node.childrens.size(); i++){
-               clear(node.childrens.get(i));
-           }
-        }
-        node.childrens.clear();
+    public Item getItem(int id) {
+        return items[id];
     }
 
-    public PTree getChildren(int pos){
-        return childrens.get(pos);
+    /**
+     * @param id The identifier of the item
+     * @return the count of the item in D1 in the header table
+     */
+    public int getCount1(int id) {
+        return headerCount1[id];
     }
-    
-    public int numChildren(){
-        return childrens.size();
+
+    /**
+     * @param id The identifier of the item
+     * @return the count of the item in D2 in the header table
+     */
+    public int getCount2(int id) {
+        return headerCount2[id];
     }
-    
+
     /**
-     * Sets the nodes from {@code startIndex +1 } untill the end of the header table with counts equal to 0 and null node-links
-     * @param startIndex 
+     * @return the number of nodes of the tree, including the root
      */
-    public static void cleanLinks(int startIndex){
-        if(startIndex + 1 < headerTable.size()){
-            for(int i = startIndex + 1; i < headerTable.size(); i++){
-                // remove all node links for this item
-                PTree aux = headerTable.get(i).headNodeLink;
-                while(aux != null){
-                    PTree aux2 = aux.node_link;
-                    aux.node_link = null;
-                    aux = aux2;
-                }
-                headerTable.set(i, new HeaderTableEntry(headerTable.get(i).item, null));
-            }
-        }
+    public int numNodes() {
+        return numNodes;
     }
-    
+
 }
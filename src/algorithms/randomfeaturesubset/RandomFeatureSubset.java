@@ -42,6 +42,7 @@ import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.Qualities.Statist
 import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.SubsetRelation;
 import static PRFramework.Core.SupervisedClassifiers.InstanceModelHelper.classFeature;
 import framework.utils.Base;
+import framework.utils.ParallelEnsemble;
 import java.util.ArrayList;
 import java.util.HashMap;
 import keel.Dataset.InstanceSet;
@@ -62,6 +63,8 @@ public class RandomFeatureSubset extends RandomFeatureSubset_Wrapper
 
     public int treeCount = 100;
 
+    public long seed;
+
     public int subsetSize = 0;
 
     public int subsetPercent = -1;
@@ -87,6 +90,7 @@ public class RandomFeatureSubset extends RandomFeatureSubset_Wrapper
         }
         maxDepth = Integer.parseInt(params.get("maxDepth"));
         treeCount = Integer.parseInt(params.get("treeCount"));
+        seed = params.containsKey("Seed") ? Long.parseLong(params.get("Seed")) : System.currentTimeMillis();
         subsetSize = Integer.parseInt(params.get("subsetSize"));
         subsetPercent = Integer.parseInt(params.get("subsetPercent"));
     }
@@ -102,22 +106,18 @@ public class RandomFeatureSubset extends RandomFeatureSubset_Wrapper
         //Check  time		
         setInitialTime();
 
-        RandomFeatureSubsetMiner miner = new RandomFeatureSubsetMiner();
-        DecisionTreeBuilder builder = new DecisionTreeBuilder();
-        builder.setMaxDepth(maxDepth);
-        builder.setPruneResult(true);
-        builder.setPruneTester(new PessimisticError()); 
-        builder.setMinimalInstanceMembership(0.05);
-        builder.setStopCondition(new PureNodeStopCondition());
-
-        miner.setDecisionTreeBuilder(builder);
-        miner.setFilterRelation(subsetRelation);
-        miner.setTreeCount(treeCount);
-        miner.setSubsetSize(subsetSize);
-        miner.setSubsetPercent(subsetPercent);
-        miner.setEPTester(new QualityBasedPatternTester(new GrowthRateQuality(), growthRate));
-
-        ArrayList<IEmergingPattern> prfPatterns = miner.mine(model, prfInstances, classFeature.argValue);
+        // Each tree is mined by its own miner, with a seeded random generator
+        ArrayList<IEmergingPattern> prfPatterns = ParallelEnsemble.mine(treeCount, seed, subsetRelation, (tree, random) -> {
+            RandomFeatureSubsetMiner miner = new RandomFeatureSubsetMiner();
+            miner.setDecisionTreeBuilder(createBuilder());
+            miner.setFilterRelation(subsetRelation);
+            miner.setTreeCount(1);
+            miner.setSubsetSize(subsetSize);
+            miner.setSubsetPercent(subsetPercent);
+            miner.setEPTester(new QualityBasedPatternTester(new GrowthRateQuality(), growthRate));
+            miner.setRandomGenerator(random);
+            return miner.mine(model, prfInstances, classFeature.argValue);
+        });
         ArrayList<Pattern> keelPatterns = new ArrayList<>();
 
         Base.convertPRFPatternsToKeelPatterns(prfPatterns, keelPatterns);
@@ -129,6 +129,17 @@ public class RandomFeatureSubset extends RandomFeatureSubset_Wrapper
         super.setPatterns(keelPatterns);
     }
 
+    private DecisionTreeBuilder createBuilder ()
+    {
+        DecisionTreeBuilder builder = new DecisionTreeBuilder();
+        builder.setMaxDepth(maxDepth);
+        builder.setPruneResult(true);
+        builder.setPruneTester(new PessimisticError()); 
+        builder.setMinimalInstanceMembership(0.05);
+        builder.setStopCondition(new PureNodeStopCondition());
+        return builder;
+    }
+
     /**
      * Sets the time counter
      *
@@ -29,22 +29,27 @@ package algorithms.randomforest;
 
 import PRFramework.Core.Common.Feature;
 import framework.utils.Base;
+import framework.utils.ParallelEnsemble;
 import PRFramework.Core.Common.Instance;
 import PRFramework.Core.Common.InstanceModel;
 import PRFramework.Core.Common.RefObject;
 import PRFramework.Core.IO.BinarySerializer;
+import PRFramework.Core.Samplers.RandomSampler;
 import PRFramework.Core.SupervisedClassifiers.DecisionTrees.Builder.DecisionTreeBuilder;
+import PRFramework.Core.SupervisedClassifiers.DecisionTrees.DecisionTree;
 import PRFramework.Core.SupervisedClassifiers.DecisionTrees.DistributionTesters.PureNodeStopCondition;
 import PRFramework.Core.SupervisedClassifiers.DecisionTrees.PruneTesters.PessimisticError;
 import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.IEmergingPattern;
-import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.Miners.RandomForestMiner;
 import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.PatternTests.QualityBasedPatternTester;
 import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.Qualities.Statistical.ConfidenceQuality;
 import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.Qualities.Statistical.GrowthRateQuality;
 import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.SubsetRelation;
 import static PRFramework.Core.SupervisedClassifiers.InstanceModelHelper.classFeature;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
 import keel.Dataset.InstanceSet;
 import framework.items.Pattern;
 
@@ -63,6 +68,8 @@ public class RandomForest extends RandomForest_Wrapper
 
     public int treeCount = 100;
 
+    public long seed;
+
     //Timing
     protected long initialTime;
 
@@ -84,6 +91,7 @@ public class RandomForest extends RandomForest_Wrapper
         }
         maxDepth = Integer.parseInt(params.get("maxDepth"));
         treeCount = Integer.parseInt(params.get("treeCount"));
+        seed = params.containsKey("Seed") ? Long.parseLong(params.get("Seed")) : System.currentTimeMillis();
     }
 
     public void mine ()
@@ -97,20 +105,17 @@ public class RandomForest extends RandomForest_Wrapper
         //Check  time		
         setInitialTime();
 
-        RandomForestMiner miner = new RandomForestMiner();
-        DecisionTreeBuilder builder = new DecisionTreeBuilder();
-        builder.setMaxDepth(maxDepth);
-        builder.setPruneResult(true);
-        builder.setPruneTester(new PessimisticError()); 
-        builder.setMinimalInstanceMembership(0.05);
-        builder.setStopCondition(new PureNodeStopCondition());
-
-        miner.setDecisionTreeBuilder(builder);
-        miner.setFilterRelation(subsetRelation);
-        miner.setTreeCount(treeCount);
-        miner.setEPTester(new QualityBasedPatternTester(new GrowthRateQuality(), growthRate));
-        
-        ArrayList<IEmergingPattern> prfPatterns = miner.mine(model, prfInstances, classFeature.argValue);
+        // Each split of a tree considers a random subset of log2(features) + 1 features
+        List<Feature> features = Arrays.stream(model.getFeatures()).filter(f -> f.notEqual(classFeature.argValue)).collect(Collectors.toList());
+        int featureCount = (int) (Math.log(features.size()) / Math.log(2)) + 1;
+        ArrayList<IEmergingPattern> prfPatterns = ParallelEnsemble.mine(treeCount, seed, subsetRelation, (tree, random) -> {
+            RandomSampler sampler = new RandomSampler();
+            sampler.setRandomGenerator(random);
+            DecisionTreeBuilder builder = createBuilder();
+            builder.OnSelectingFeaturesToConsider = (candidates, level) -> sampler.SampleWithoutRepetition(features, featureCount);
+            DecisionTree decisionTree = builder.Build(model, new ArrayList<>(prfInstances), classFeature.argValue);
+            return ParallelEnsemble.extractPatterns(decisionTree, model, classFeature.argValue, new QualityBasedPatternTester(new GrowthRateQuality(), growthRate));
+        });
         ArrayList<Pattern> keelPatterns = new ArrayList<>();
 
         Base.convertPRFPatternsToKeelPatterns(prfPatterns, keelPatterns);
@@ -122,6 +127,17 @@ public class RandomForest extends RandomForest_Wrapper
         super.setPatterns(keelPatterns);
     }
 
+    private DecisionTreeBuilder createBuilder ()
+    {
+        DecisionTreeBuilder builder = new DecisionTreeBuilder();
+        builder.setMaxDepth(maxDepth);
+        builder.setPruneResult(true);
+        builder.setPruneTester(new PessimisticError()); 
+        builder.setMinimalInstanceMembership(0.05);
+        builder.setStopCondition(new PureNodeStopCondition());
+        return builder;
+    }
+
     /**
      * Sets the time counter
      *
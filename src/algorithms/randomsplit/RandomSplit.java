@@ -31,6 +31,7 @@ import PRFramework.Core.Common.Feature;
 import PRFramework.Core.Common.Instance;
 import PRFramework.Core.Common.InstanceModel;
 import PRFramework.Core.Common.RefObject;
+import PRFramework.Core.Common.RandomGenerator;
 import PRFramework.Core.SupervisedClassifiers.DecisionTrees.Builder.DecisionTreeBuilder;
 import PRFramework.Core.SupervisedClassifiers.DecisionTrees.DistributionTesters.PureNodeStopCondition;
 import PRFramework.Core.SupervisedClassifiers.DecisionTrees.PruneTesters.PessimisticError;
@@ -42,6 +43,7 @@ import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.Qualities.Statist
 import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.SubsetRelation;
 import static PRFramework.Core.SupervisedClassifiers.InstanceModelHelper.classFeature;
 import framework.utils.Base;
+import framework.utils.ParallelEnsemble;
 import java.util.ArrayList;
 import java.util.HashMap;
 import keel.Dataset.InstanceSet;
@@ -63,6 +65,8 @@ public class RandomSplit extends RandomSplit_Wrapper
 
     public int treeCount = 100;
 
+    public long seed;
+
     public int bestKToSearch = 10;
 
     //Timing
@@ -86,6 +90,7 @@ public class RandomSplit extends RandomSplit_Wrapper
         }
         maxDepth = Integer.parseInt(params.get("maxDepth"));
         treeCount = Integer.parseInt(params.get("treeCount"));
+        seed = params.containsKey("Seed") ? Long.parseLong(params.get("Seed")) : System.currentTimeMillis();
         bestKToSearch = Integer.parseInt(params.get("bestKToSearch"));
     }
 
@@ -100,22 +105,17 @@ public class RandomSplit extends RandomSplit_Wrapper
         //Check  time		
         setInitialTime();
 
-        RandomSplitMiner miner = new RandomSplitMiner();
-        DecisionTreeBuilder builder = new DecisionTreeBuilder();
-        builder.setMaxDepth(maxDepth);
-        builder.setPruneResult(true);
-        builder.setPruneTester(new PessimisticError()); 
-        builder.setMinimalInstanceMembership(0.05);
-        builder.setStopCondition(new PureNodeStopCondition());
-        
-
-        miner.setDecisionTreeBuilder(builder);
-        miner.setFilterRelation(subsetRelation);
-        miner.setTreeCount(treeCount);
-        miner.setEPTester(new QualityBasedPatternTester(new GrowthRateQuality(), growthRate));
-        miner.setBestKToSearch(bestKToSearch);
-
-        ArrayList<IEmergingPattern> prfPatterns = miner.mine(model, prfInstances, classFeature.argValue);
+        // Each tree is mined by its own miner, with a seeded random generator
+        ArrayList<IEmergingPattern> prfPatterns = ParallelEnsemble.mine(treeCount, seed, subsetRelation, (tree, random) -> {
+            RandomSplitMiner miner = new RandomSplitMiner();
+            miner.setDecisionTreeBuilder(createBuilder());
+            miner.setFilterRelation(subsetRelation);
+            miner.setTreeCount(1);
+            miner.setEPTester(new QualityBasedPatternTester(new GrowthRateQuality(), growthRate));
+            miner.setBestKToSearch(bestKToSearch);
+            miner.setRandomGenerator(new RandomGenerator(random.nextInt()));
+            return miner.mine(model, prfInstances, classFeature.argValue);
+        });
         ArrayList<Pattern> keelPatterns = new ArrayList<>();
 
         Base.convertPRFPatternsToKeelPatterns(prfPatterns, keelPatterns);
@@ -127,6 +127,17 @@ public class RandomSplit extends RandomSplit_Wrapper
         super.setPatterns(keelPatterns);
     }
 
+    private DecisionTreeBuilder createBuilder ()
+    {
+        DecisionTreeBuilder builder = new DecisionTreeBuilder();
+        builder.setMaxDepth(maxDepth);
+        builder.setPruneResult(true);
+        builder.setPruneTester(new PessimisticError()); 
+        builder.setMinimalInstanceMembership(0.05);
+        builder.setStopCondition(new PureNodeStopCondition());
+        return builder;
+    }
+
     /**
      * Sets the time counter
      *
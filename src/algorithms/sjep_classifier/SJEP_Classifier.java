@@ -31,7 +31,6 @@ import framework.items.NominalItem;
 import framework.items.Pattern;
 import framework.utils.Utils;
 import framework.utils.cptree.*;
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -69,12 +68,17 @@ public class SJEP_Classifier extends Model {
      * The bit string representation for those items that appear in D1. An "1"
      * at bit position k means that this Item appear in the transaction number k
      */
-    private HashMap<Item, BigInteger> itemCountsForD1;
+    private HashMap<Item, long[]> itemCountsForD1;
     /**
      * The bit string representation for those items that appear in D2. An "1"
      * at bit position k means that this Item appear in the transaction number k
      */
-    private HashMap<Item, BigInteger> itemCountsForD2;
+    private HashMap<Item, long[]> itemCountsForD2;
+    /**
+     * Auxiliar bit string where the intersections of the bit strings are
+     * computed, in order to not allocate memory on each count
+     */
+    private long[] bitsAux;
     /**
      * The priority queue where top-k positive patterns are stored.
      */
@@ -152,7 +156,7 @@ public class SJEP_Classifier extends Model {
                 }
                 t_ini = System.currentTimeMillis();
                 // Mine the tree looking for SJEPs !
-                mineTree(tree.getRoot(), new Pattern(new ArrayList<Item>(), 0), false);
+                mineTree(tree.getRoot(), null, 0, false);
 
             } else {
                 //MULTICLASS - WITH ONE VS ALL BINARZATION
@@ -209,7 +213,7 @@ public class SJEP_Classifier extends Model {
                     System.out.println("Mining!");
                     t_ini = System.currentTimeMillis();
                     // Mine the tree looking for SJEPs !
-                    mineTree(tree.getRoot(), new Pattern(new ArrayList<Item>(), i), true);
+                    mineTree(tree.getRoot(), null, i, true);
                     System.out.println("Mining took: " + (System.currentTimeMillis() - t_ini) / 1000d + " seconds.");
                     // Clean auxiliar variables for the next class computation
                     itemCountsForD1.clear();
@@ -287,68 +291,86 @@ public class SJEP_Classifier extends Model {
     /**
      * Gets the bit string of each single item for each class. This string
      * represent an 1 at position k if the transaction k has that item for the
-     * class, or 0 elsewhere.
+     * class, or 0 elsewhere. The strings are stored as arrays of 64-bit words,
+     * where transaction k is the bit {@code k % 64} of the word {@code k / 64}.
      *
      * @param instances
      */
     public void getBitStrings(ArrayList<Pattern> instances) {
+        int numWords = (instances.size() + 63) >>> 6;
         Set<Item> keySet = countsPerItem.keySet();
         Iterator<Item> iterator = keySet.iterator();
         while (iterator.hasNext()) {
             Item it = iterator.next();
             // set bits to zero
-            BigInteger a = BigInteger.ZERO;
-            itemCountsForD1.put(it, a);
-            itemCountsForD2.put(it, a);
+            itemCountsForD1.put(it, new long[numWords]);
+            itemCountsForD2.put(it, new long[numWords]);
         }
+        bitsAux = new long[numWords];
 
         for (int i = 0; i < instances.size(); i++) {
             for (Item it : instances.get(i).getItems()) {
                 if (instances.get(i).getClase() == 0) {
-                    itemCountsForD1.put(it, itemCountsForD1.get(it).setBit(i));
+                    itemCountsForD1.get(it)[i >>> 6] |= 1L << i;
                 } else {
-                    itemCountsForD2.put(it, itemCountsForD2.get(it).setBit(i));
+                    itemCountsForD2.get(it)[i >>> 6] |= 1L << i;
                 }
             }
         }
     }
 
-    public void mineTree(Node node, Pattern alpha, boolean OVA) {
+    /**
+     * Mines the given CP-Tree node looking for SJEPs. The candidate patterns
+     * are represented as prefixes and only materialised into a
+     * {@link Pattern} when they are accepted.
+     *
+     * @param node The node to mine
+     * @param alpha The pattern represented by the node, {@code null} for the
+     * root
+     * @param clase The class of the positive patterns
+     * @param OVA {@code true} if only the patterns of the positive class are
+     * returned
+     */
+    public void mineTree(Node node, PatternPrefix alpha, int clase, boolean OVA) {
         // for all i in t.items
         for (int j = 0; j < node.getItems().size(); j++) {
             if (node.getItems().get(j).visited) {
                 continue;
             }
-            // if the subtree is not empty then merge
-            if (node.getItems().get(j).getChild() != null) {
-                if (!node.getItems().get(j).getChild().getItems().isEmpty()) {
-                    node.merge(node.getItems().get(j).getChild(), supportRatioPerItem);
-                }
-            }
             Entry i = node.getItems().get(j);
-            Pattern beta = alpha.clone();
-            beta.add(i.getItem());
+            PatternPrefix beta = new PatternPrefix(alpha, i.getItem());
 
             // We are looking for patterns only on the positive class to allow multiclass problems.
-            if (acceptPattern(beta, i.getCountD1(), i.getCountD2(), minPosCount)) {
-                //beta.setClase(i);
+            boolean acceptPos = acceptPattern(beta, i.getCountD1(), i.getCountD2(), minPosCount);
+            boolean acceptNeg = !acceptPos && acceptPattern(beta, i.getCountD2(), i.getCountD1(), minNegCount);
+            boolean visit = !acceptPos && !acceptNeg && visitSubTree(beta, i) && i.getChild() != null;
+
+            // if the subtree is not empty then merge. If it is not going to be visited it is discarded after, so it can be moved
+            if (i.getChild() != null) {
+                if (!i.getChild().getItems().isEmpty()) {
+                    node.merge(i.getChild(), !visit);
+                }
+            }
+
+            if (acceptPos) {
+                Pattern pattern = beta.toPattern(clase);
                 HashMap<String, Double> m = new HashMap<>();
                 m.put("SUPP", ((Integer) i.getCountD1()).doubleValue());
-                beta.setTra_measures(m);
-                super.patterns.add(beta.clone());
+                pattern.setTra_measures(m);
+                super.patterns.add(pattern);
 
             } else {
-                if (acceptPattern(beta, i.getCountD2(), i.getCountD1(), minNegCount)) {
+                if (acceptNeg) {
                     if (!OVA) { // If we are in OVA multiclass, we dont want patterns for the negative class, but we want the pruning.
-                        beta.setClase(1);
+                        Pattern pattern = beta.toPattern(1);
                         HashMap<String, Double> m = new HashMap<>();
                         m.put("SUPP", ((Integer) i.getCountD2()).doubleValue());
-                        beta.setTra_measures(m);
-                        super.patterns.add(beta.clone());
+                        pattern.setTra_measures(m);
+                        super.patterns.add(pattern);
                     }
                 } else {
-                    if (visitSubTree(beta, i) && i.getChild() != null) {
-                        mineTree(i.getChild(), beta, OVA);
+                    if (visit) {
+                        mineTree(i.getChild(), beta, clase, OVA);
                     }
                 }
             }
@@ -366,22 +388,43 @@ public class SJEP_Classifier extends Model {
      * @param forD1
      * @return
      */
-    public int getPatternCount(Pattern p, boolean forD1) {
-        BigInteger a;
-        if (forD1) {
-            a = itemCountsForD1.get(p.get(0));
-        } else {
-            a = itemCountsForD2.get(p.get(0));
-        }
+    public int getPatternCount(PatternPrefix p, boolean forD1) {
+        return getPatternCount(p, -1, forD1);
+    }
 
-        for (int i = 1; i < p.length(); i++) {
-            if (forD1) {
-                a = a.and(itemCountsForD1.get(p.get(i)));
-            } else {
-                a = a.and(itemCountsForD2.get(p.get(i)));
+    /**
+     * Gets the pattern counts for D1 (or D2 if forD1 == false) of the pattern
+     * {@code p} without the item at position {@code skip}. The intersection of
+     * the bit strings is computed in place, so no memory is allocated.
+     *
+     * @param p
+     * @param skip The position of the item to leave out, or -1 to use them all
+     * @param forD1
+     * @return
+     */
+    public int getPatternCount(PatternPrefix p, int skip, boolean forD1) {
+        HashMap<Item, long[]> bits = forD1 ? itemCountsForD1 : itemCountsForD2;
+        boolean first = true;
+        int i = p.length() - 1;
+        for (PatternPrefix q = p; q != null; q = q.getParent(), i--) {
+            if (i != skip) {
+                long[] b = bits.get(q.getItem());
+                if (first) {
+                    System.arraycopy(b, 0, bitsAux, 0, bitsAux.length);
+                    first = false;
+                } else {
+                    for (int w = 0; w < bitsAux.length; w++) {
+                        bitsAux[w] &= b[w];
+                    }
+                }
             }
         }
-        return a.bitCount();
+
+        int count = 0;
+        for (int w = 0; w < bitsAux.length; w++) {
+            count += Long.bitCount(bitsAux[w]);
+        }
+        return count;
     }
 
     /**
@@ -396,7 +439,7 @@ public class SJEP_Classifier extends Model {
      * class, {@code false} into the negative one.
      * @return
      */
-    public boolean acceptPattern(Pattern beta, int countD1, int countD2, int minCount) {
+    public boolean acceptPattern(PatternPrefix beta, int countD1, int countD2, int minCount) {
         // check if the patter is a JEP
         return countD1 >= minCount && countD2 == 0;
     }
@@ -409,7 +452,7 @@ public class SJEP_Classifier extends Model {
      * @param entry The actual node
      * @return
      */
-    public boolean visitSubTree(Pattern beta, Entry entry) {
+    public boolean visitSubTree(PatternPrefix beta, Entry entry) {
         // check if child node has minimal counts
         return entry.getCountD1() >= minPosCount || entry.getCountD2() >= minNegCount;
     }
@@ -31,13 +31,14 @@ import framework.items.NominalItem;
 import framework.items.Pattern;
 import framework.utils.Utils;
 import framework.utils.cptree.*;
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import keel.Dataset.InstanceSet;
@@ -66,12 +67,18 @@ public class TopK extends Model {
      * The bit string representation for those items that appear in D1. An "1"
      * at bit position k means that this Item appear in the transaction number k
      */
-    private HashMap<Item, BigInteger> itemCountsForD1;
+    private HashMap<Item, long[]> itemCountsForD1;
     /**
      * The bit string representation for those items that appear in D2. An "1"
      * at bit position k means that this Item appear in the transaction number k
      */
-    private HashMap<Item, BigInteger> itemCountsForD2;
+    private HashMap<Item, long[]> itemCountsForD2;
+    /**
+     * Auxiliar bit string where the intersections of the bit strings are
+     * computed, in order to not allocate memory on each count. There is one
+     * for each thread that mines the tree.
+     */
+    private ThreadLocal<long[]> bitsAux;
     /**
      * The priority queue where top-k positive patterns are stored.
      */
@@ -81,9 +88,11 @@ public class TopK extends Model {
      */
     private PriorityQueue<Pattern> topK_NegPatterns;
     /**
-     * The minimum count for positive instances
+     * The minimum count for positive instances. It is the support of the worst
+     * pattern in the top-k queue once it is full, and it is shared by all the
+     * branches mined in parallel.
      */
-    private int minPosCount = 0;
+    private final AtomicInteger minPosCount = new AtomicInteger();
     /**
      * The minimum count for negative instances
      */
@@ -97,6 +106,12 @@ public class TopK extends Model {
      */
     private int k;
 
+    /**
+     * Whether the top-level branches of the CP-Tree are mined in parallel
+     * (the default)
+     */
+    private boolean parallelBranches;
+
     @Override
     public void learn(InstanceSet training, HashMap<String, String> params) {
         try {
@@ -107,6 +122,7 @@ public class TopK extends Model {
             itemCountsForD1 = new HashMap<>();
             itemCountsForD2 = new HashMap<>();
             k = Integer.parseInt(params.get("K"));
+            parallelBranches = !"sequential".equals(params.get("Branch Mining"));
 
             topK_PosPatterns = new PriorityQueue<>((Pattern o1, Pattern o2) -> {
                 double supp1 = o1.getTraMeasure("SUPP");
@@ -121,7 +137,14 @@ public class TopK extends Model {
                     } else if (o1.length() < o2.length()) {
                         return -1;
                     } else {
-                        return 1 * ((NominalItem) o1.get(0)).compareTo((NominalItem) o2.get(0));
+                        // lexicographical order of the items, so the order is total
+                        for (int j = 0; j < o1.length(); j++) {
+                            int cmp = ((NominalItem) o1.get(j)).compareTo((NominalItem) o2.get(j));
+                            if (cmp != 0) {
+                                return cmp;
+                            }
+                        }
+                        return 0;
                     }
                 }
             });
@@ -145,16 +168,17 @@ public class TopK extends Model {
                         } else if (gr1 < gr2) {
                             return -1;
                         } else {
-                            return ((NominalItem) o1).compareTo(o2);
+                            return -1 * ((NominalItem) o1).compareTo(o2);
                         }
                     });
                     tree.insert(p, supportRatioPerItem);
                 }
                 // Mine the tree looking for Top-k SJEPs !
-                mineTree(tree.getRoot(), new Pattern(new ArrayList<Item>(), i));
+                mineRoot(tree.getRoot(), i);
 
                 // Clean auxiliar variables for the next class computation
-                collectedNegPatterns = collectedPosPatterns = minNegCount = minPosCount = 0;
+                collectedNegPatterns = collectedPosPatterns = minNegCount = 0;
+                minPosCount.set(0);
                 itemCountsForD1.clear();
                 itemCountsForD2.clear();
                 countsPerItem.clear();
@@ -222,60 +246,143 @@ public class TopK extends Model {
     /**
      * Gets the bit string of each single item for each class. This string
      * represent an 1 at position k if the transaction k has that item for the
-     * class, or 0 elsewhere.
+     * class, or 0 elsewhere. The strings are stored as arrays of 64-bit words,
+     * where transaction k is the bit {@code k % 64} of the word {@code k / 64}.
      *
      * @param instances
      */
     public void getBitStrings(ArrayList<Pattern> instances) {
+        int numWords = (instances.size() + 63) >>> 6;
         Set<Item> keySet = countsPerItem.keySet();
         Iterator<Item> iterator = keySet.iterator();
         while (iterator.hasNext()) {
             Item it = iterator.next();
             // set bits to zero
-            BigInteger a = BigInteger.ZERO;
-            itemCountsForD1.put(it, a);
-            itemCountsForD2.put(it, a);
+            itemCountsForD1.put(it, new long[numWords]);
+            itemCountsForD2.put(it, new long[numWords]);
         }
+        bitsAux = ThreadLocal.withInitial(() -> new long[numWords]);
 
         for (int i = 0; i < instances.size(); i++) {
             for (Item it : instances.get(i).getItems()) {
                 if (instances.get(i).getClase() == 0) {
-                    itemCountsForD1.put(it, itemCountsForD1.get(it).setBit(i));
+                    itemCountsForD1.get(it)[i >>> 6] |= 1L << i;
                 } else {
-                    itemCountsForD2.put(it, itemCountsForD2.get(it).setBit(i));
+                    itemCountsForD2.get(it)[i >>> 6] |= 1L << i;
                 }
             }
         }
     }
 
-    public void mineTree(Node node, Pattern alpha) {
-        // for all i in t.items
-        for (int j = 0; j < node.getItems().size(); j++) {
-            // if the subtree is not empty then merge
-            if (node.getItems().get(j).getChild() != null) {
-                if (!node.getItems().get(j).getChild().getItems().isEmpty()) {
-                    node.merge(node.getItems().get(j).getChild(), supportRatioPerItem);
+    /**
+     * Mines the root of the CP-Tree. First, the subtree of each root entry is
+     * merged, in order, into the root, so every top-level branch holds all its
+     * transactions. Then, each branch is mined independently, in parallel if
+     * it is enabled. The branches share the top-k queue and the minimum count,
+     * so all of them prune with the best threshold found so far. Since the
+     * order of the queue is total, the top-k patterns are the same whatever the
+     * order in which the branches are mined.
+     *
+     * @param root The root of the CP-Tree
+     * @param clase The class of the patterns
+     */
+    public void mineRoot(Node root, int clase) {
+        for (int j = 0; j < root.getItems().size(); j++) {
+            Entry i = root.getItems().get(j);
+            if (i.getChild() != null && !i.getChild().getItems().isEmpty()) {
+                root.merge(i.getChild(), false);
+            }
+        }
+
+        if (parallelBranches) {
+            ArrayList<ForkJoinTask<?>> branches = new ArrayList<>();
+            for (Entry i : root.getItems()) {
+                branches.add(ForkJoinTask.adapt(() -> mineBranch(i, clase)));
+            }
+            ForkJoinTask.invokeAll(branches);
+        } else {
+            for (Entry i : root.getItems()) {
+                mineBranch(i, clase);
+            }
+        }
+    }
+
+    /**
+     * Mines a top-level branch of the CP-Tree, whose subtree is already merged
+     * into the root.
+     *
+     * @param i The root entry of the branch
+     * @param clase The class of the patterns
+     */
+    private void mineBranch(Entry i, int clase) {
+        PatternPrefix beta = new PatternPrefix(null, i.getItem());
+        if (acceptPattern(beta, i.getCountD1(), i.getCountD2(), minPosCount.get(), true)) {
+            offer(beta.toPattern(clase), i.getCountD1());
+        } else if (visitSubTree(beta, i) && i.getChild() != null) {
+            mineTree(i.getChild(), beta, clase);
+        }
+        i.setChild(null);
+    }
+
+    /**
+     * Offers an accepted pattern to the top-k queue. If the queue is full, the
+     * pattern only enters if it is better than the worst one, which is
+     * removed. After that, the minimum count is updated with the support of
+     * the worst pattern.
+     *
+     * @param pattern The pattern
+     * @param countD1 The counts of the pattern for D1
+     */
+    private void offer(Pattern pattern, int countD1) {
+        HashMap<String, Double> m = new HashMap<>();
+        m.put("SUPP", ((Integer) countD1).doubleValue());
+        pattern.setTra_measures(m);
+
+        synchronized (topK_PosPatterns) {
+            if (topK_PosPatterns.size() > k) {
+                if (topK_PosPatterns.comparator().compare(pattern, topK_PosPatterns.peek()) <= 0) {
+                    return;
                 }
+                topK_PosPatterns.poll();
             }
+            topK_PosPatterns.offer(pattern);
+            if (topK_PosPatterns.size() > k) {
+                minPosCount.set((int) topK_PosPatterns.peek().getTraMeasure("SUPP"));
+            }
+        }
+    }
+
+    /**
+     * Mines the given CP-Tree node looking for top-k SJEPs. The candidate
+     * patterns are represented as prefixes and only materialised into a
+     * {@link Pattern} when they are accepted.
+     *
+     * @param node The node to mine
+     * @param alpha The pattern represented by the node, {@code null} for the
+     * root
+     * @param clase The class of the patterns
+     */
+    public void mineTree(Node node, PatternPrefix alpha, int clase) {
+        // for all i in t.items
+        for (int j = 0; j < node.getItems().size(); j++) {
             Entry i = node.getItems().get(j);
-            Pattern beta = alpha.clone();
-            beta.add(i.getItem());
+            PatternPrefix beta = new PatternPrefix(alpha, i.getItem());
 
             // We are only looking for patterns on the positive class to allow multiclass problems.
-            if (acceptPattern(beta, i.getCountD1(), i.getCountD2(), minPosCount, true)) {
-                //beta.setClase(i);
-                HashMap<String, Double> m = new HashMap<>();
-                m.put("SUPP", ((Integer) i.getCountD1()).doubleValue());
-                beta.setTra_measures(m);
-
-                if (topK_PosPatterns.size() > k) {
-                    topK_PosPatterns.poll();
-                    minPosCount = (int) topK_PosPatterns.peek().getTraMeasure("SUPP") + 1;
+            boolean accept = acceptPattern(beta, i.getCountD1(), i.getCountD2(), minPosCount.get(), true);
+            boolean visit = !accept && visitSubTree(beta, i) && i.getChild() != null;
+
+            // if the subtree is not empty then merge. If it is not going to be visited it is discarded after, so it can be moved
+            if (i.getChild() != null) {
+                if (!i.getChild().getItems().isEmpty()) {
+                    node.merge(i.getChild(), !visit);
                 }
-                topK_PosPatterns.offer(beta.clone());
+            }
 
-            } else if (visitSubTree(beta, i) && i.getChild() != null) {
-                mineTree(i.getChild(), beta);
+            if (accept) {
+                offer(beta.toPattern(clase), i.getCountD1());
+            } else if (visit) {
+                mineTree(i.getChild(), beta, clase);
             }
             i.setChild(null);
             //System.gc();
@@ -290,22 +397,44 @@ public class TopK extends Model {
      * @param forD1
      * @return
      */
-    public int getPatternCount(Pattern p, boolean forD1) {
-        BigInteger a;
-        if (forD1) {
-            a = itemCountsForD1.get(p.get(0));
-        } else {
-            a = itemCountsForD2.get(p.get(0));
-        }
+    public int getPatternCount(PatternPrefix p, boolean forD1) {
+        return getPatternCount(p, -1, forD1);
+    }
 
-        for (int i = 1; i < p.length(); i++) {
-            if (forD1) {
-                a = a.and(itemCountsForD1.get(p.get(i)));
-            } else {
-                a = a.and(itemCountsForD2.get(p.get(i)));
+    /**
+     * Gets the pattern counts for D1 (or D2 if forD1 == false) of the pattern
+     * {@code p} without the item at position {@code skip}. The intersection of
+     * the bit strings is computed in place, so no memory is allocated.
+     *
+     * @param p
+     * @param skip The position of the item to leave out, or -1 to use them all
+     * @param forD1
+     * @return
+     */
+    public int getPatternCount(PatternPrefix p, int skip, boolean forD1) {
+        HashMap<Item, long[]> bits = forD1 ? itemCountsForD1 : itemCountsForD2;
+        long[] aux = bitsAux.get();
+        boolean first = true;
+        int i = p.length() - 1;
+        for (PatternPrefix q = p; q != null; q = q.getParent(), i--) {
+            if (i != skip) {
+                long[] b = bits.get(q.getItem());
+                if (first) {
+                    System.arraycopy(b, 0, aux, 0, aux.length);
+                    first = false;
+                } else {
+                    for (int w = 0; w < aux.length; w++) {
+                        aux[w] &= b[w];
+                    }
+                }
             }
         }
-        return a.bitCount();
+
+        int count = 0;
+        for (int w = 0; w < aux.length; w++) {
+            count += Long.bitCount(aux[w]);
+        }
+        return count;
     }
 
     /**
@@ -320,24 +449,22 @@ public class TopK extends Model {
      * class, {@code false} into the negative one.
      * @return
      */
-    public boolean acceptPattern(Pattern beta, int countD1, int countD2, int minCount, boolean positiveClass) {
+    public boolean acceptPattern(PatternPrefix beta, int countD1, int countD2, int minCount, boolean positiveClass) {
         boolean minimal = false;
         // check if the patter is a JEP
         if (positiveClass) {
-            if (countD1 > minCount && countD2 == 0) {
+            if (countD1 > 0 && countD1 >= minCount && countD2 == 0) {
                 minimal = true;
             }
-        } else if (countD2 > minCount && countD1 == 0) {
+        } else if (countD2 > 0 && countD2 >= minCount && countD1 == 0) {
             minimal = true;
         }
 
         // Check minimality if the pattern is a JEP
         if (minimal && beta.length() > 1) {
             int beta_count = getPatternCount(beta, !positiveClass);
-            for (Item it : beta.getItems()) {
-                Pattern other = beta.clone();
-                other.drop(it);
-                if (beta_count >= getPatternCount(other, !positiveClass)) {
+            for (int i = 0; i < beta.length(); i++) {
+                if (beta_count >= getPatternCount(beta, i, !positiveClass)) {
                     minimal = false;
                     break;
                 }
@@ -354,19 +481,18 @@ public class TopK extends Model {
      * @param entry The actual node
      * @return
      */
-    public boolean visitSubTree(Pattern beta, Entry entry) {
+    public boolean visitSubTree(PatternPrefix beta, Entry entry) {
         boolean minimalD1 = false;
         // check if child node has minimal counts
-        if (entry.getCountD1() >= minPosCount) {
+        if (entry.getCountD1() >= minPosCount.get()) {
             minimalD1 = true;
         }
 
         // check minimality of the pattern
         if (beta.length() > 1 && (minimalD1)) {
-            for (Item it : beta.getItems()) {
-                Pattern other = beta.clone();
-                other.drop(it);
-                if (minimalD1 && getPatternCount(beta, false) >= getPatternCount(other, false)) {
+            int beta_count = getPatternCount(beta, false);
+            for (int i = 0; i < beta.length(); i++) {
+                if (minimalD1 && beta_count >= getPatternCount(beta, i, false)) {
                     minimalD1 = false;
                 }
 
@@ -24,6 +24,7 @@
 package algorithms.tree_based_jep;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import framework.deprecated.Item;
 
 /**
@@ -35,23 +36,30 @@ import framework.deprecated.Item;
 public class Tree {
 
     /**
+     * Sets the simple items of the tree, in the order used to sort the nodes,
+     * and computes the position of each one. Only meaningful on the root.
+     *
      * @param aSimpleItems the simpleItems to set
      */
-    public static void setSimpleItems(ArrayList<Item> aSimpleItems) {
+    public void setSimpleItems(ArrayList<Item> aSimpleItems) {
         simpleItems = aSimpleItems;
+        itemIndex = new IdentityHashMap<>();
+        for (int i = 0; i < simpleItems.size(); i++) {
+            itemIndex.put(simpleItems.get(i), i);
+        }
     }
 
     /**
      * @return the node_link
      */
-    public static ArrayList<Tree> getNode_link() {
+    public ArrayList<Tree> getNode_link() {
         return node_link;
     }
 
     /**
      * @return the simpleItems
      */
-    public static ArrayList<Item> getSimpleItems() {
+    public ArrayList<Item> getSimpleItems() {
         return simpleItems;
     }
 
@@ -63,8 +71,14 @@ public class Tree {
     private Tree nextEqual;
     private boolean visited;
 
-    private static ArrayList<Tree> node_link;
-    private static ArrayList<Item> simpleItems;
+    /*
+     * The node-link structure and the simple items of the tree. They are only
+     * set on the root, so each tree can be built and mined independently.
+     */
+    private ArrayList<Tree> node_link;
+    private Tree[] node_link_tail;   // The last node of each node-link list
+    private ArrayList<Item> simpleItems;
+    private IdentityHashMap<Item, Integer> itemIndex;   // The position of each item (the same objects than in the instances) in simpleItems
 
     public Tree(Item item, int clas, int nClasses, Tree parent) {
         visited = false;
@@ -83,31 +97,37 @@ public class Tree {
      * Initialise the node_link data structure
      * @param size 
      */
-    public static void initializeNodeLinks(int size) {
+    public void initializeNodeLinks(int size) {
         node_link = new ArrayList<>();
         for (int i = 0; i < size; i++) {
             getNode_link().add(null);
         }
+        node_link_tail = new Tree[size];
     }
 
     /** 
      * Adds the node at the end of the item's node link table.
      * @param node
-     * @return 
+     * @return {@code true} if the node is the first one of the item
      */
-    public static boolean addInNodeLink(Tree node) {
-        int index = getSimpleItems().indexOf(node.item);
+    public boolean addInNodeLink(Tree node) {
+        int index = getIndexOf(node.item);
         if (index > -1) {
-            if (getNode_link().get(index) == null) {
+            boolean first = getNode_link().get(index) == null;
+            if (first) {
                 getNode_link().set(index, node);
-                return true;
+            } else {
+                node_link_tail[index].nextEqual = node;
             }
+            node_link_tail[index] = node;
+            return first;
         }
         return false;
     }
 
-    public static int getIndexOf(Item a) {
-        return getSimpleItems().indexOf(a);
+    public int getIndexOf(Item a) {
+        Integer index = itemIndex.get(a);
+        return index == null ? -1 : index;
     }
 
     /**
@@ -153,73 +173,34 @@ public class Tree {
     }
 
     /**
-     * Inserts an instance into the tree
+     * Inserts an instance into the tree. It must be called on the root, and
+     * the items of the instance must be sorted by the order of the simple
+     * items of the tree.
      *
      * @param it The instances
      * @param clas The class of the instance
-     * @param simpleItems The items ordered in descending order.
      */
-    public void insert_tree(ArrayList<Item> it, int clas, ArrayList<Item> simpleItems) {
-        insert_tree(it, clas, this, simpleItems);
-    }
-
-    /**
-     * Private function to insert an instance into the tree
-     *
-     * @param it the instance
-     * @param clas the class of the instance
-     * @param node The node to insert the item.
-     */
-    private void insert_tree(ArrayList<Item> it, int clas, Tree node, ArrayList<Item> simpleItems) {
-        this.nextEqual = null;
-        // if "it" contains a child
-        if (!it.isEmpty()) {
-            ArrayList<Item> clone = (ArrayList<Item>) it.clone();
-            boolean exist = false;
-            int children_index = -1;
-            // search if the item exist in node's children.
-            for (int i = 0; i < node.children.size() && !exist; i++) {
-                if (node.children.get(i).item.equals(it.get(0))) {
-                    exist = true;
-                    children_index = i;
-                }
+    public void insert_tree(ArrayList<Item> it, int clas) {
+        Tree node = this;
+        for (Item item : it) {
+            int index = getIndexOf(item);
+            // search the item in node's children, which are sorted according to the items order.
+            int children_index = 0;
+            while (children_index < node.children.size() && getIndexOf(node.children.get(children_index).item) < index) {
+                children_index++;
             }
 
-            if (!exist) {
-                // add new children
-                Tree t = new Tree(it.get(0), clas, 2, node);
-                node.children.add(t);
-                int a = simpleItems.indexOf(t.item);
-                // sort children according to the items order
-                node.children.sort((Tree o1, Tree o2) -> {
-                    int i1 = simpleItems.indexOf(o1.item);
-                    int i2 = simpleItems.indexOf(o2.item);
-                    if (i1 > i2) {
-                        return 1;
-                    } else if (i1 < i2) {
-                        return -1;
-                    } else {
-                        return 0;
-                    }
-                });
-                children_index = node.children.indexOf(t);
-                // Add node the node-link structure
-                if (!Tree.addInNodeLink(t)) {
-                    // if there are an elemente on the node-head list, get the last element and set the nextEqual to this one.
-                    int index = simpleItems.indexOf(t.item);
-                    Tree first = node_link.get(index);
-                    while (first.getNextEqual() != null) {
-                        first = first.getNextEqual();
-                    }
-                    first.nextEqual = t;
-                }
-
-            } else {
+            if (children_index < node.children.size() && node.children.get(children_index).item.equals(item)) {
                 // node exists, incremets count of the children.
                 node.children.get(children_index).count[clas]++;
+            } else {
+                // add new children at its place
+                Tree t = new Tree(item, clas, 2, node);
+                node.children.add(children_index, t);
+                // Add node at the end of the node-link structure
+                addInNodeLink(t);
             }
-            clone.remove(0);
-            insert_tree(clone, clas, node.children.get(children_index), simpleItems);
+            node = node.children.get(children_index);
         }
     }
 
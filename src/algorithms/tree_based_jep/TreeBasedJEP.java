@@ -24,9 +24,15 @@
 package algorithms.tree_based_jep;
 
 import framework.GUI.Model;
+import framework.utils.PatternSink;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import javafx.util.Pair;
@@ -46,7 +52,6 @@ import framework.deprecated.Utils;
  */
 public class TreeBasedJEP extends Model {
 
-    private Tree root;
     private String ordering;
     private float alpha;
     private int prune;
@@ -61,15 +66,31 @@ public class TreeBasedJEP extends Model {
         alpha = Float.parseFloat(params.get("Alpha"));
         prune = Integer.parseInt(params.get("Pattern Max Length"));
 
-        // generate and mine the tree for each class
+        // generate and mine the tree for each class. Each class has its own
+        // tree, so the classes are mined concurrently and their patterns are
+        // emitted into a sink that removes the duplicated ones.
         long init_time = System.currentTimeMillis();
+        PatternSink sink = new PatternSink();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(numClasses, Runtime.getRuntime().availableProcessors()));
+        ArrayList<Future<?>> tasks = new ArrayList<>();
         for (int i = 0; i < numClasses; i++) {
+            final int clas = i;
             // Generate Tree for class i and mine patterns of this tree
-            generateTree(training, ordering, i, alpha);
-            mineTree(i, prune);
+            tasks.add(pool.submit(() -> sink.addAll(mineTree(generateTree(training, ordering, clas, alpha), clas, prune))));
         }
-        System.out.println("Removing duplicated patterns...");
-        patterns = Utils.removeDuplicates(patterns);
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while mining the trees", ex);
+        } catch (ExecutionException ex) {
+            throw new RuntimeException("Error in the mining of the trees", ex);
+        } finally {
+            pool.shutdown();
+        }
+        sink.drainTo(this);
         System.out.println("Execution time: " + (System.currentTimeMillis() - init_time) / 1000.0 + " seconds");
         System.out.println("Number of patterns: " + super.patterns.size());
     }
@@ -132,98 +153,113 @@ public class TreeBasedJEP extends Model {
      * </ul>
      * @param clas The class to mine
      * @param alpha The alpha value for "hibryd" mode.
+     * @return The root of the tree
      */
-    private void generateTree(InstanceSet training, String mode, int clas, float alpha) {
+    private Tree generateTree(InstanceSet training, String mode, int clas, float alpha) {
         ArrayList<Item> simpleItems = Utils.getSimpleItems(training, 0, clas);
         ArrayList<Pair<ArrayList<Item>, Integer>> instances = Utils.getInstances(training, simpleItems, clas);
         for (int i = 0; i < simpleItems.size(); i++) {
             simpleItems.get(i).calculateProbabilities(training, "M");
         }
 
-        // Order simple itemsets and instances by a given mode.
-        switch (mode) {
-            case "frequency":
-                simpleItems.sort(Utils.frequency);
-                instances.forEach((t) -> {
-                    t.getKey().sort(Utils.frequency);
-                });
-                break;
-            case "ratio":
-                simpleItems.sort(Utils.ratio);
-                instances.forEach((t) -> {
-                    t.getKey().sort(Utils.ratio);
-                });
-                break;
-            case "ratioInverse":
-                simpleItems.sort(Utils.ratioInverse);
-                instances.forEach((t) -> {
-                    t.getKey().sort(Utils.ratioInverse);
-                });
-                break;
-            case "LPNC":
-                simpleItems.sort(Utils.LPNC);
-                instances.forEach((t) -> {
-                    t.getKey().sort(Utils.LPNC);
-                });
-                break;
-            case "MPPC":
-                simpleItems.sort(Utils.MPPC);
-                instances.forEach((t) -> {
-                    t.getKey().sort(Utils.MPPC);
-                });
-                break;
-            case "hybrid":
-                // Gets items ordenred by frequency and ratio.
-                ArrayList<Item> sortedFrequency = (ArrayList<Item>) simpleItems.clone();
-                ArrayList<Item> sortedRatio = (ArrayList<Item>) simpleItems.clone();
-                sortedFrequency.sort(Utils.frequency);
-                sortedRatio.sort(Utils.ratio);
-
-                //gets the alpha simple items from frequency
-                int elements = (int) (sortedRatio.size() * alpha);
-                simpleItems.clear();
-                simpleItems.addAll(sortedRatio.subList(0, elements));
-                sortedFrequency.removeAll(simpleItems);
-                simpleItems.addAll(sortedFrequency);
-                // Sort instances
-                instances.forEach((t) -> {
-                    t.getKey().sort((o1, o2) -> {
-                        int i1 = simpleItems.indexOf(o1);
-                        int i2 = simpleItems.indexOf(o2);
-                        if (i1 > i2) {
-                            return 1;
-                        } else if (i1 < i2) {
-                            return -1;
-                        } else {
-                            return 0;
-                        }
-                    });
-                });
+        // Order simple itemsets by a given mode. The sort key of each item is computed only once.
+        if (mode.equals("hybrid")) {
+            // Gets items ordenred by frequency and ratio.
+            ArrayList<Item> sortedFrequency = (ArrayList<Item>) simpleItems.clone();
+            ArrayList<Item> sortedRatio = (ArrayList<Item>) simpleItems.clone();
+            sortByKey(sortedFrequency, "frequency");
+            sortByKey(sortedRatio, "ratio");
+
+            //gets the alpha simple items from frequency
+            int elements = (int) (sortedRatio.size() * alpha);
+            simpleItems.clear();
+            simpleItems.addAll(sortedRatio.subList(0, elements));
+            sortedFrequency.removeAll(simpleItems);
+            simpleItems.addAll(sortedFrequency);
+        } else {
+            sortByKey(simpleItems, mode);
         }
 
-        // Now that we have the instances sorted, generate the tree
-        Tree.setSimpleItems(simpleItems);
-        Tree.initializeNodeLinks(simpleItems.size());
-        root = new Tree(null, 0, 2, null);
+        // Now that we have the simple items sorted, sort the instances by the position of their items and generate the tree
+        Tree root = new Tree(null, 0, 2, null);
         root.setRoot(true);
+        root.setSimpleItems(simpleItems);
+        root.initializeNodeLinks(simpleItems.size());
+        Comparator<Item> byIndex = Comparator.comparingInt(root::getIndexOf);
         instances.forEach((inst) -> {
             // Insert the item from the root.
-            root.insert_tree(inst.getKey(), inst.getValue(), simpleItems);
+            inst.getKey().sort(byIndex);
+            root.insert_tree(inst.getKey(), inst.getValue());
+        });
+        return root;
+    }
+
+    /**
+     * Sorts the items by the given mode. It is equivalent to sort them with
+     * the comparators of {@link Utils}, but the key of each item is calculated
+     * once instead of in every comparison.
+     *
+     * @param items The items to sort
+     * @param mode The mode to sort the items
+     */
+    private static void sortByKey(ArrayList<Item> items, String mode) {
+        IdentityHashMap<Item, Double> keys = new IdentityHashMap<>();
+        for (Item it : items) {
+            double ratio = it.getD2count() != 0 ? (double) it.getD1count() / (double) it.getD2count() : Double.POSITIVE_INFINITY;
+            double key;
+            switch (mode) {
+                case "frequency":
+                    // Descending frequency
+                    key = -(it.getD1count() + it.getD2count());
+                    break;
+                case "ratio":
+                    key = -ratio;
+                    break;
+                case "ratioInverse":
+                    key = ratio;
+                    break;
+                case "LPNC":
+                    // Ascending count in the negative class
+                    key = it.getD2count();
+                    break;
+                case "MPPC":
+                    // Descending count in the positive class
+                    key = -it.getD1count();
+                    break;
+                default:
+                    key = 0;
+            }
+            keys.put(it, key);
+        }
+        items.sort((o1, o2) -> {
+            double k1 = keys.get(o1);
+            double k2 = keys.get(o2);
+            if (k1 > k2) {
+                return 1;
+            } else if (k1 < k2) {
+                return -1;
+            } else {
+                return 0;
+            }
         });
     }
 
     /**
      * Public method to mine the tree.
+     * @param root The root of the tree
      * @param clas The class to look for patterns
      * @param threshold  The threshold to prune patterns (<= 0 means no prune)
+     * @return The patterns found
      */
-    public void mineTree(int clas, int threshold) {
+    public ArrayList<framework.items.Pattern> mineTree(Tree root, int clas, int threshold) {
+        ArrayList<framework.items.Pattern> result = new ArrayList<>();
         for (Tree componentTree : root.getChildren()) {
             // mine the component tre
-            mineTree(componentTree, new Pattern(new ArrayList<Item>(), clas), 0, threshold);
+            mineTree(componentTree, new Pattern(new ArrayList<Item>(), clas), 0, threshold, result);
             // When mined the component tree, apply the "relocate_branches" procedure.
             relocate_branches(componentTree);
         }
+        return result;
     }
 
     /**
@@ -232,8 +268,9 @@ public class TreeBasedJEP extends Model {
      * @param p The actual pattern
      * @param clas The class to look for patterns
      * @param threshold The threshold to prune the tree (<= 0 means no prune)
+     * @param result The list where the patterns found are added
      */
-    private void mineTree(Tree node, Pattern p, int clas, int threshold) {
+    private void mineTree(Tree node, Pattern p, int clas, int threshold, ArrayList<framework.items.Pattern> result) {
         if (node != null && (p.getItems().size() <= threshold || threshold <= 0)) {
             node.visited();
             int negativeClass = clas == 0 ? 1 : 0;
@@ -252,25 +289,25 @@ public class TreeBasedJEP extends Model {
                         ArrayList<Item> items = new ArrayList<>();
                         items.add(aux.getItems().get(0));
                         items.add(aux.getItems().get(aux.getItems().size() - 1));
-                        super.patterns.add(Utils.castToNewPatternFormat(new Pattern(items, aux.getClase())));
+                        result.add(Utils.castToNewPatternFormat(new Pattern(items, aux.getClase())));
                     } else {
                         // apply border_diff
                         Pattern borderDiff = borderDiff(aux, negativeInstances);
                         if (!borderDiff.getItems().isEmpty()) {
-                            super.patterns.add(Utils.castToNewPatternFormat(borderDiff));
+                            result.add(Utils.castToNewPatternFormat(borderDiff));
                         }
                     }
                 } else {
                     Pattern p1 = new Pattern(new ArrayList<Item>(), clas);
                     p1.add(node.getItem());
-                    super.patterns.add(Utils.castToNewPatternFormat(p1));
+                    result.add(Utils.castToNewPatternFormat(p1));
                 }
 
             }
 
             // Recursive call for each node's child
             for (Tree child : node.getChildren()) {
-                mineTree(child, aux, clas, threshold);
+                mineTree(child, aux, clas, threshold, result);
             }
 
         }
@@ -285,9 +322,6 @@ public class TreeBasedJEP extends Model {
      * @return 
      */
     private ArrayList<Pattern> findNegativeInstances(Tree target, Item root, int clas) {
-        Item it = target.getItem();
-        ArrayList<Tree> node_link = Tree.getNode_link();
-        int index = Tree.getSimpleItems().indexOf(it);
         ArrayList<Pattern> result = new ArrayList<>();
 
         Tree aux = target.getNextEqual();
@@ -135,7 +135,7 @@ public class Utils {
     public static Comparator<Item> LPNC = (Item o1, Item o2) -> {
         if (o1.getD2count() > o2.getD2count()) {
             return 1;
-        } else if (o2.getD2count() < o2.getD2count()) {
+        } else if (o1.getD2count() < o2.getD2count()) {
             return -1;
         } else {
             return 0;
@@ -148,7 +148,7 @@ public class Utils {
     public static Comparator<Item> MPPC = (Item o1, Item o2) -> {
         if (o1.getD1count() < o2.getD1count()) {
             return 1;
-        } else if (o2.getD1count() > o2.getD1count()) {
+        } else if (o1.getD1count() > o2.getD1count()) {
             return -1;
         } else {
             return 0;
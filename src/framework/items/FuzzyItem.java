@@ -127,4 +127,11 @@ public class FuzzyItem extends Item {
         }
     }
 
+    /**
+     * @return the value
+     */
+    public Fuzzy getValue() {
+        return value;
+    }
+
 }
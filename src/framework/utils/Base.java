@@ -17,9 +17,12 @@ import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.GreatherThanItem;
 import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.IEmergingPattern;
 import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.LessOrEqualThanItem;
 import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.SingleValueItem;
-import static PRFramework.Core.SupervisedClassifiers.InstanceModelHelper.classValues;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.WeakHashMap;
 import keel.Dataset.Attribute;
 import keel.Dataset.InstanceSet;
 import framework.items.*;
@@ -33,14 +36,81 @@ import framework.items.*;
 public class Base
 {
 
+    /**
+     * PRFramework instances converted from a KEEL training set. They are
+     * cached so all the miners that run on the same training set share them.
+     * The miners only read the instances and the features, so they can be
+     * shared between several miners, even concurrently.
+     */
+    private static class PRFData
+    {
+        private final keel.Dataset.Instance[] source;   // The KEEL instances converted, to detect changes in the training set
+        private final InstanceModel model;
+        private final ArrayList<Instance> instances;
+        private final Feature classFeature;
+
+        private PRFData(keel.Dataset.Instance[] source, InstanceModel model, ArrayList<Instance> instances, Feature classFeature)
+        {
+            this.source = source;
+            this.model = model;
+            this.instances = instances;
+            this.classFeature = classFeature;
+        }
+    }
+
+    private static final Map<InstanceSet, PRFData> convertedSets = new WeakHashMap<>();
+
+    /**
+     * Converts the KEEL training set to PRFramework instances. The conversion
+     * is done only once for each training set: the following calls fill
+     * {@code model} with the same features and add the same instances.
+     *
+     * @param train The KEEL training set
+     * @param instances The list where the PRFramework instances are added
+     * @param model The model to fill with the features of the training set
+     * @param classFeature It returns the feature of the class
+     */
     public static void ConvertKeelInstancesToPRFInstances (InstanceSet train, 
             ArrayList<Instance> instances, InstanceModel model, RefObject<Feature> classFeature)
     {
-        
-        ArrayList<Feature> featureDescriptions = new ArrayList<>();
+        PRFData data = getPRFData(train);
+        model.setRelationName(data.model.getRelationName());
+        model.setFeatures(data.model.getFeatures());
+        model.setDatasetInformation(data.model.getDatasetInformation());
+        instances.addAll(data.instances);
+        classFeature.argValue = data.classFeature;
+    }
+
+    /**
+     * Returns the cached conversion of the training set, converting it if it
+     * was not converted yet or its instances have changed.
+     *
+     * @param train The KEEL training set
+     * @return The PRFramework data of the training set
+     */
+    private static synchronized PRFData getPRFData (InstanceSet train)
+    {
+        PRFData data = convertedSets.get(train);
+        if (data == null || data.source != train.getInstances()) {
+            data = convert(train);
+            convertedSets.put(train, data);
+        }
+        return data;
+    }
 
-        //StringTokenizer tokens = new StringTokenizer(train.getHeader(), " \n\r");
-        //tokens.nextToken();
+    /**
+     * Converts the KEEL training set to PRFramework instances, taking the
+     * values directly from the parsed values of each KEEL instance.
+     *
+     * @param train The KEEL training set
+     * @return The PRFramework data of the training set
+     */
+    private static PRFData convert (InstanceSet train)
+    {
+        InstanceModel model = new InstanceModel();
+        ArrayList<Instance> instances = new ArrayList<>();
+        ArrayList<Feature> featureDescriptions = new ArrayList<>();
+        Feature classFeature = null;
 
         Attribute classAttr = train.getAttributeDefinitions().getOutputAttribute(0);
         
@@ -68,62 +138,237 @@ public class Base
             }
             featureDescriptions.add(featToAdd);
             if (a == classAttr)
-                classFeature.argValue = featToAdd;
+                classFeature = featToAdd;
         }
 
         model.setFeatures(featureDescriptions.toArray(new Feature[0]));
+        Feature[] features = model.getFeatures();
+
+        // The values are taken in the same order than in the KEEL instances: first the inputs, then the outputs.
+        Attribute[] inputs = train.getAttributeDefinitions().getInputAttributes();
+        Attribute[] outputs = train.getAttributeDefinitions().getOutputAttributes();
 
         keel.Dataset.Instance[] KInstances = train.getInstances();
 
         for (keel.Dataset.Instance i : KInstances) {
             Instance obj = model.CreateInstance();
             int idx = 0;
-            for (String s : i.toString().split(",")) {
-                String value = s.trim();
-                if (value.equals("?")) {
-                    obj.set(model.getFeatures()[idx], FeatureValue.Missing);
-                } else {
-                    obj.set(model.getFeatures()[idx], model.getFeatures()[idx].Parse(value));
-                }
+            for (int j = 0; j < inputs.length; j++) {
+                obj.set(features[idx], ConvertKeelValue(features[idx], inputs[j], i.getInputNominalValues(j), i.getInputRealValues(j), i.getInputMissingValues(j)));
+                idx++;
+            }
+            for (int j = 0; j < outputs.length; j++) {
+                obj.set(features[idx], ConvertKeelValue(features[idx], outputs[j], i.getOutputNominalValues(j), i.getOutputRealValues(j), i.getOutputMissingValues(j)));
                 idx++;
             }
             instances.add(obj);
         }
 
         BaseSerializer.LoadInstancesInformation(model, instances);
+        return new PRFData(KInstances, model, instances, classFeature);
     }
 
+    /**
+     * Converts a value of a KEEL instance to the PRFramework value of the feature.
+     *
+     * @param feature The PRFramework feature
+     * @param a The KEEL attribute
+     * @param nominal The value if the attribute is nominal
+     * @param real The value if the attribute is numeric
+     * @param missing Whether the value is missing
+     * @return The PRFramework value
+     */
+    private static double ConvertKeelValue (Feature feature, Attribute a, String nominal, double real, boolean missing)
+    {
+        if (missing) {
+            return FeatureValue.Missing;
+        }
+        switch (a.getType()) {
+            case Attribute.NOMINAL:
+                return feature.Parse(nominal);
+            case Attribute.INTEGER:
+                return (int) real;
+            default:
+                return real;
+        }
+    }
+
+    /**
+     * Converts the PRFramework patterns to patterns of the framework. The
+     * items of each pattern are put in a canonical form: they are sorted by
+     * feature, operator and value, and the redundant bounds on the same
+     * feature are merged (only the lowest {@code <=} and the highest {@code >}
+     * are kept). The canonical patterns are deduplicated through a 64-bit hash
+     * before being created, so duplicated patterns are never materialised.
+     *
+     * @param patterns The PRFramework patterns
+     * @param keelPatterns The list where the converted patterns are added
+     */
     public static void convertPRFPatternsToKeelPatterns (ArrayList<IEmergingPattern> patterns, ArrayList<Pattern> keelPatterns)
     {
+        HashSet<PatternKey> converted = new HashSet<>();
         for (IEmergingPattern ep : patterns) {
+            PatternKey key = new PatternKey(canonicalItems(ep), ArrayHelper.argMax(ep.getCounts()));
+            if (!converted.add(key)) {
+                continue;
+            }
+
             Item it;
             ArrayList<Item> items = new ArrayList<>();
 
-            for (PRFramework.Core.SupervisedClassifiers.EmergingPatterns.Item i : ep.getItems()) {
+            for (CanonicalItem c : key.items) {
+                PRFramework.Core.SupervisedClassifiers.EmergingPatterns.Item i = c.item;
                 if (i.getFeature().getFeatureType() == FeatureType.Integer || i.getFeature().getFeatureType() == FeatureType.Double) {
                     // IF VARIABLE IS REAL, CREATE AN REAL ITEM.
-                    String operator = " = ";
-                    if (i instanceof DifferentThanItem) {
-                        operator = " != ";
-                    } else if (i instanceof GreatherThanItem) {
-                        operator = " > ";
-                    } else if (i instanceof LessOrEqualThanItem) {
-                        operator = " <= ";
-                    }
-
-                    it = new NumericItem(i.getFeature().getName(), ((SingleValueItem) i).getValue(), operator);
+                    it = new NumericItem(i.getFeature().getName(), c.value, OPERATORS[c.operator]);
                 } else {
                     // IF NOMINAL, CREATE THE ITEM NOMINAL. NOTE THAT WE MADE THE CONVERSION OF REAL TO NOMINAL ATTRIBUTE
-                    double aux = 1.0 / (classValues(i.getFeature()).length - 1.0);
-                    int valueVal = ((Double) (((SingleValueItem) i).getValue() / aux)).intValue();
-                    String valor = i.getFeature().valueToString(((SingleValueItem) i).getValue());
+                    String valor = i.getFeature().valueToString(c.value);
                     it = new NominalItem(i.getFeature().getName(), valor.substring(1, valor.length() - 1));
                 }
                 items.add(it);
             }
 
-            Pattern p = new Pattern(items, ArrayHelper.argMax(ep.getCounts()));
+            Pattern p = new Pattern(items, key.clase);
             keelPatterns.add(p);
         }
     }
+
+    /**
+     * The operators of the numeric items, indexed by {@link CanonicalItem#operator}
+     */
+    private static final String[] OPERATORS = {" = ", " != ", " > ", " <= "};
+
+    /**
+     * An item of a PRFramework pattern, with the values used to sort and
+     * compare the items.
+     */
+    private static class CanonicalItem implements Comparable<CanonicalItem>
+    {
+        private final PRFramework.Core.SupervisedClassifiers.EmergingPatterns.Item item;
+        private final int feature;
+        private final int operator;   // The position of the operator in OPERATORS. It is always 0 for nominal items, as they are converted to equalities.
+        private final double value;
+
+        private CanonicalItem (PRFramework.Core.SupervisedClassifiers.EmergingPatterns.Item item)
+        {
+            this.item = item;
+            this.feature = item.getFeature().getIndex();
+            this.value = ((SingleValueItem) item).getValue();
+            FeatureType type = item.getFeature().getFeatureType();
+            if (type != FeatureType.Integer && type != FeatureType.Double) {
+                operator = 0;
+            } else if (item instanceof DifferentThanItem) {
+                operator = 1;
+            } else if (item instanceof GreatherThanItem) {
+                operator = 2;
+            } else if (item instanceof LessOrEqualThanItem) {
+                operator = 3;
+            } else {
+                operator = 0;
+            }
+        }
+
+        @Override
+        public int compareTo (CanonicalItem o)
+        {
+            if (feature != o.feature) {
+                return Integer.compare(feature, o.feature);
+            }
+            if (operator != o.operator) {
+                return Integer.compare(operator, o.operator);
+            }
+            return Double.compare(value, o.value);
+        }
+    }
+
+    /**
+     * Returns the items of the pattern in canonical order, merging the bounds
+     * of the same feature and removing the repeated items.
+     *
+     * @param ep The PRFramework pattern
+     * @return The canonical items
+     */
+    private static CanonicalItem[] canonicalItems (IEmergingPattern ep)
+    {
+        CanonicalItem[] sorted = new CanonicalItem[ep.getItems().size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = new CanonicalItem(ep.getItems().get(i));
+        }
+        Arrays.sort(sorted);
+
+        int size = 0;
+        for (CanonicalItem c : sorted) {
+            if (size > 0 && sorted[size - 1].feature == c.feature && sorted[size - 1].operator == c.operator) {
+                CanonicalItem last = sorted[size - 1];
+                if (c.operator == 2) {
+                    // x > a and x > b, with a <= b: keep x > b
+                    sorted[size - 1] = c;
+                    continue;
+                } else if (c.operator == 3 || last.value == c.value) {
+                    // x <= a and x <= b, with a <= b: keep x <= a. Repeated items are also removed.
+                    continue;
+                }
+            }
+            sorted[size++] = c;
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * Key of a canonical pattern. Its 64-bit hash is computed once, and the
+     * items are only compared when two hashes are equal.
+     */
+    private static class PatternKey
+    {
+        private final CanonicalItem[] items;
+        private final int clase;
+        private final long hash;
+
+        private PatternKey (CanonicalItem[] items, int clase)
+        {
+            this.items = items;
+            this.clase = clase;
+            long h = mix(0x9E3779B97F4A7C15L ^ clase);
+            for (CanonicalItem c : items) {
+                h = mix(h ^ (((long) c.feature << 2) | c.operator));
+                h = mix(h ^ Double.doubleToLongBits(c.value));
+            }
+            this.hash = h;
+        }
+
+        /**
+         * Mixes the bits of a 64-bit value (the finalizer of SplitMix64)
+         */
+        private static long mix (long z)
+        {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+
+        @Override
+        public int hashCode ()
+        {
+            return (int) (hash ^ (hash >>> 32));
+        }
+
+        @Override
+        public boolean equals (Object other)
+        {
+            if (!(other instanceof PatternKey)) {
+                return false;
+            }
+            PatternKey o = (PatternKey) other;
+            if (hash != o.hash || clase != o.clase || items.length != o.items.length) {
+                return false;
+            }
+            for (int i = 0; i < items.length; i++) {
+                if (items[i].compareTo(o.items[i]) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
@@ -0,0 +1,158 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 angel.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package framework.utils;
+
+import PRFramework.Core.Common.Feature;
+import PRFramework.Core.Common.InstanceModel;
+import PRFramework.Core.SupervisedClassifiers.DecisionTrees.DecisionTree;
+import PRFramework.Core.SupervisedClassifiers.DecisionTrees.DecisionTreeClassifier;
+import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.EmergingPatternComparer;
+import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.EmergingPatternCreator;
+import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.EmergingPatternSimplifier;
+import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.FilteredCollection;
+import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.IEmergingPattern;
+import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.IPatternTest;
+import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.ItemComparer;
+import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.PatternTestHelper;
+import PRFramework.Core.SupervisedClassifiers.EmergingPatterns.SubsetRelation;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel driver for the ensembles of decision trees of the PRFramework based
+ * miners. The trees of the ensemble are partitioned among the available
+ * processors, and each tree is built with its own random generator, whose seed
+ * only depends on the seed of the ensemble and the number of the tree. The
+ * patterns of all the trees are merged in tree order and filtered with the
+ * subset relation of the miner, so for a given seed the result does not depend
+ * on the number of threads. The miners take the seed from their "Seed"
+ * parameter, or from the current time if it is not given, in which case the
+ * trees are not reproducible.
+ *
+ * @author Ángel M. García-Vico
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class ParallelEnsemble {
+
+    /**
+     * Mines the patterns of one tree of the ensemble.
+     */
+    public interface TreeMiner {
+
+        /**
+         * Builds a tree of the ensemble and returns its patterns. The trees are
+         * built concurrently, so each one must use its own tree builder.
+         *
+         * @param tree The number of the tree in the ensemble
+         * @param random The random generator of the tree. It must be the only
+         * source of randomness used to build the tree.
+         * @return The patterns of the tree
+         */
+        ArrayList<IEmergingPattern> mine(int tree, Random random);
+    }
+
+    /**
+     * Mines the patterns of an ensemble of trees.
+     *
+     * @param treeCount The number of trees of the ensemble
+     * @param seed The seed of the ensemble
+     * @param filterRelation The relation used to filter the patterns of all the
+     * trees
+     * @param miner Builds each tree and returns its patterns
+     * @return The patterns of the ensemble, without duplicates
+     */
+    public static ArrayList<IEmergingPattern> mine(int treeCount, long seed, SubsetRelation filterRelation, TreeMiner miner) {
+        // The seed of each tree is generated before partitioning the trees, so it does not depend on the threads.
+        long[] seeds = new long[treeCount];
+        Random seeder = new Random(seed);
+        for (int i = 0; i < treeCount; i++) {
+            seeds[i] = seeder.nextLong();
+        }
+
+        // Each thread builds a contiguous block of trees.
+        ArrayList<ArrayList<IEmergingPattern>> treePatterns = new ArrayList<>();
+        for (int i = 0; i < treeCount; i++) {
+            treePatterns.add(null);
+        }
+        int threads = Math.max(1, Math.min(treeCount, Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ArrayList<Future<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            final int from = (int) ((long) treeCount * i / threads);
+            final int to = (int) ((long) treeCount * (i + 1) / threads);
+            tasks.add(pool.submit(() -> {
+                for (int tree = from; tree < to; tree++) {
+                    treePatterns.set(tree, miner.mine(tree, new Random(seeds[tree])));
+                }
+            }));
+        }
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while building the trees", ex);
+        } catch (ExecutionException ex) {
+            throw new RuntimeException("Error building the trees", ex);
+        } finally {
+            pool.shutdown();
+        }
+
+        // Merge the patterns in tree order, removing the duplicated ones.
+        EmergingPatternComparer comparer = new EmergingPatternComparer(new ItemComparer());
+        FilteredCollection<IEmergingPattern> result = new FilteredCollection<>(comparer::Compare, filterRelation);
+        for (ArrayList<IEmergingPattern> patterns : treePatterns) {
+            result.AddRange(patterns);
+        }
+        return result.GetItems();
+    }
+
+    /**
+     * Extracts the patterns of a decision tree that pass the test, simplified,
+     * as the PRFramework tree based miners do.
+     *
+     * @param tree The decision tree
+     * @param model The model of the instances
+     * @param classFeature The class feature
+     * @param epTester The test the patterns must pass
+     * @return The patterns of the tree
+     */
+    public static ArrayList<IEmergingPattern> extractPatterns(DecisionTree tree, InstanceModel model, Feature classFeature, IPatternTest epTester) {
+        EmergingPatternCreator creator = new EmergingPatternCreator();
+        EmergingPatternSimplifier simplifier = new EmergingPatternSimplifier(new ItemComparer());
+        ArrayList<IEmergingPattern> patterns = new ArrayList<>();
+        creator.ExtractPatterns(new DecisionTreeClassifier(tree), (pattern) -> {
+            if (PatternTestHelper.Test(epTester, pattern.getCounts(), model, classFeature)) {
+                patterns.add(simplifier.Simplify(pattern));
+            }
+        }, classFeature);
+        return patterns;
+    }
+}
@@ -0,0 +1,393 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 angel.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package framework.utils;
+
+import framework.GUI.Model;
+import framework.items.Item;
+import framework.items.NumericItem;
+import framework.items.Pattern;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Collects the patterns emitted concurrently by the threads of a miner. The
+ * patterns are identified by a canonical key (the class and the sorted textual
+ * form of the distinct items), so the duplicated patterns are removed as they
+ * are added. The keys are spread among several stripes, each one a lock-free
+ * skip list, according to a 64-bit hash of the key.
+ *
+ * Optionally, only the best {@code k} patterns according to a quality measure
+ * are kept. For each key, the pattern with the highest measure is kept, and
+ * ties between keys are broken by the canonical key. Among the patterns with
+ * the same key and measure, the one kept is chosen by their contents (item
+ * order, items and measures), not by the order in which they are added. Each stripe discards the patterns that
+ * cannot be among its best {@code k} patterns when it grows too much.
+ *
+ * The patterns are drained sorted by their canonical key, so the result does
+ * not depend on the threads or the order of the patterns.
+ *
+ * @author Ángel M. García-Vico
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class PatternSink {
+
+    /**
+     * Canonical key of a pattern
+     */
+    private static final class Key implements Comparable<Key> {
+
+        private final int clase;
+        private final String[] items;
+        private final long hash;
+
+        Key(Pattern pattern) {
+            String[] its = new String[pattern.length()];
+            for (int i = 0; i < its.length; i++) {
+                its[i] = pattern.get(i).toString();
+            }
+            Arrays.sort(its);
+            int size = 0;
+            for (String it : its) {
+                if (size == 0 || !its[size - 1].equals(it)) {
+                    its[size++] = it;
+                }
+            }
+            clase = pattern.getClase();
+            items = Arrays.copyOf(its, size);
+            long h = mix(clase);
+            for (String it : items) {
+                h = mix(h ^ it.hashCode());
+            }
+            hash = h;
+        }
+
+        /**
+         * SplitMix64 finaliser, so all the bits of the hash depend on the items
+         */
+        private static long mix(long z) {
+            z += 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+
+        @Override
+        public int compareTo(Key o) {
+            if (clase != o.clase) {
+                return Integer.compare(clase, o.clase);
+            }
+            for (int i = 0; i < items.length && i < o.items.length; i++) {
+                int c = items[i].compareTo(o.items[i]);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return Integer.compare(items.length, o.items.length);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && hash == ((Key) o).hash && compareTo((Key) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+
+    /**
+     * A pattern of the sink with its measure
+     */
+    private static final class Entry {
+
+        private final Key key;
+        private final Pattern pattern;
+        private final double measure;
+
+        Entry(Key key, Pattern pattern, double measure) {
+            this.key = key;
+            this.pattern = pattern;
+            this.measure = measure;
+        }
+
+        boolean isBetterThan(Entry o) {
+            return RANKING.compare(this, o) < 0;
+        }
+
+        /**
+         * Returns whether this entry must replace other entry with the same
+         * key. The ties on the measure are broken by the contents of the
+         * patterns, so the entry kept does not depend on the order in which
+         * the patterns are added.
+         */
+        boolean replaces(Entry o) {
+            int c = RANKING.compare(this, o);
+            return c < 0 || (c == 0 && compareContents(pattern, o.pattern) < 0);
+        }
+    }
+
+    /**
+     * A stripe of the sink. In the top-k mode, {@code worst} is the worst
+     * entry that can still be among the best {@code k} entries of the stripe.
+     */
+    private static final class Stripe {
+
+        private final ConcurrentSkipListMap<Key, Entry> entries = new ConcurrentSkipListMap<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean trimming = new AtomicBoolean();
+        private final AtomicReference<Entry> worst = new AtomicReference<>();
+    }
+
+    /**
+     * Order of the entries in the top-k mode: greater measure first, and then
+     * smaller key first.
+     */
+    private static final Comparator<Entry> RANKING = (o1, o2) -> {
+        int c = Double.compare(o2.measure, o1.measure);
+        return c != 0 ? c : o1.key.compareTo(o2.key);
+    };
+
+    private final Stripe[] stripes;
+    private final int k;
+    private final ToDoubleFunction<Pattern> measure;
+
+    /**
+     * Creates a sink that keeps all the distinct patterns.
+     */
+    public PatternSink() {
+        this(Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * Creates a sink that keeps only the best distinct patterns according to a
+     * measure.
+     *
+     * @param k The maximum number of patterns to keep
+     * @param measure The measure of the patterns. Greater is better. If it is
+     * {@code null}, all the distinct patterns are kept.
+     */
+    public PatternSink(int k, ToDoubleFunction<Pattern> measure) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("The number of patterns to keep must be positive: " + k);
+        }
+        this.k = k;
+        this.measure = measure;
+        int numStripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 4 - 1) << 1;
+        stripes = new Stripe[numStripes];
+        for (int i = 0; i < numStripes; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Adds a pattern to the sink. It can be called concurrently by several
+     * threads.
+     *
+     * @param pattern The pattern
+     * @return {@code true} if the pattern is kept in the sink, {@code false} if
+     * it is a duplicate (or, in the top-k mode, a worse one).
+     */
+    public boolean add(Pattern pattern) {
+        Key key = new Key(pattern);
+        Stripe stripe = stripes[(int) (key.hash >>> 32) & (stripes.length - 1)];
+        Entry entry = new Entry(key, pattern, measure == null ? 0.0 : measure.applyAsDouble(pattern));
+        Entry worst = stripe.worst.get();
+        if (worst != null && worst.isBetterThan(entry)) {
+            return false;
+        }
+
+        // For each key, keep the best entry. Without top-k all the entries have the same measure, so the
+        // one kept is decided by the contents of the patterns.
+        while (true) {
+            Entry current = stripe.entries.putIfAbsent(key, entry);
+            if (current == null) {
+                if (measure != null && stripe.size.incrementAndGet() > 2 * (long) k) {
+                    trim(stripe);
+                }
+                return true;
+            }
+            if (!entry.replaces(current)) {
+                return false;
+            }
+            if (stripe.entries.replace(key, current, entry)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Total order of the patterns with the same canonical key: by the items in
+     * their original order (their textual form, type, growth rate and, for
+     * numeric items, alpha) and then by their training and test measures.
+     * Patterns that are equal in this order cannot be told apart in the
+     * result.
+     */
+    private static int compareContents(Pattern p1, Pattern p2) {
+        int c = Integer.compare(p1.length(), p2.length());
+        for (int i = 0; c == 0 && i < p1.length(); i++) {
+            Item it1 = p1.get(i);
+            Item it2 = p2.get(i);
+            c = it1.toString().compareTo(it2.toString());
+            if (c == 0) {
+                c = it1.getClass().getName().compareTo(it2.getClass().getName());
+            }
+            if (c == 0) {
+                c = Double.compare(it1.getGrowthRate(), it2.getGrowthRate());
+            }
+            if (c == 0 && it1 instanceof NumericItem) {
+                c = Double.compare(((NumericItem) it1).getAlpha(), ((NumericItem) it2).getAlpha());
+            }
+        }
+        if (c == 0) {
+            c = compareMeasures(p1.getTra_measures(), p2.getTra_measures());
+        }
+        if (c == 0) {
+            c = compareMeasures(p1.getTst_measures(), p2.getTst_measures());
+        }
+        return c;
+    }
+
+    /**
+     * Compares two sets of quality measures by their names and values. A
+     * missing set goes first.
+     */
+    private static int compareMeasures(HashMap<String, Double> m1, HashMap<String, Double> m2) {
+        if (m1 == null || m2 == null) {
+            return Boolean.compare(m1 != null, m2 != null);
+        }
+        Iterator<Map.Entry<String, Double>> it1 = new TreeMap<>(m1).entrySet().iterator();
+        Iterator<Map.Entry<String, Double>> it2 = new TreeMap<>(m2).entrySet().iterator();
+        while (it1.hasNext() && it2.hasNext()) {
+            Map.Entry<String, Double> e1 = it1.next();
+            Map.Entry<String, Double> e2 = it2.next();
+            int c = e1.getKey().compareTo(e2.getKey());
+            if (c == 0) {
+                c = Comparator.nullsFirst(Double::compare).compare(e1.getValue(), e2.getValue());
+            }
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Boolean.compare(it1.hasNext(), it2.hasNext());
+    }
+
+    /**
+     * Adds a collection of patterns to the sink. It can be called concurrently
+     * by several threads.
+     *
+     * @param patterns The patterns
+     */
+    public void addAll(Collection<Pattern> patterns) {
+        for (Pattern pattern : patterns) {
+            add(pattern);
+        }
+    }
+
+    /**
+     * Discards the entries of a stripe that are worse than its k-th best
+     * entry. Only one thread trims a stripe at a time, and the others do not
+     * wait for it. The entries of the stripe can only be improved, so the
+     * discarded entries cannot be among the best {@code k} entries.
+     */
+    private void trim(Stripe stripe) {
+        if (!stripe.trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            ArrayList<Entry> snapshot = new ArrayList<>(stripe.entries.values());
+            if (snapshot.size() <= k) {
+                return;
+            }
+            snapshot.sort(RANKING);
+            Entry kth = snapshot.get(k - 1);
+            Entry worst = stripe.worst.get();
+            if (worst == null || kth.isBetterThan(worst)) {
+                stripe.worst.set(kth);
+            }
+            for (int i = k; i < snapshot.size(); i++) {
+                Entry e = snapshot.get(i);
+                if (stripe.entries.remove(e.key, e)) {
+                    stripe.size.decrementAndGet();
+                }
+            }
+        } finally {
+            stripe.trimming.set(false);
+        }
+    }
+
+    /**
+     * Removes all the patterns of the sink and returns them sorted by their
+     * canonical key. It must be called when all the threads have finished
+     * adding patterns.
+     *
+     * @return The distinct patterns (the best {@code k} ones in the top-k
+     * mode), sorted by their canonical key
+     */
+    public ArrayList<Pattern> drain() {
+        ArrayList<Entry> all = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            all.addAll(stripe.entries.values());
+            stripe.entries.clear();
+            stripe.size.set(0);
+            stripe.worst.set(null);
+        }
+        if (measure != null && all.size() > k) {
+            all.sort(RANKING);
+            all.subList(k, all.size()).clear();
+        }
+        all.sort((o1, o2) -> o1.key.compareTo(o2.key));
+        ArrayList<Pattern> result = new ArrayList<>(all.size());
+        for (Entry e : all) {
+            result.add(e.pattern);
+        }
+        return result;
+    }
+
+    /**
+     * Removes all the patterns of the sink and adds them, sorted by their
+     * canonical key, to the patterns of a model. It must be called when all
+     * the threads have finished adding patterns.
+     *
+     * @param model The model
+     */
+    public void drainTo(Model model) {
+        if (model.getPatterns() == null) {
+            model.setPatterns(new ArrayList<>());
+        }
+        model.getPatterns().addAll(drain());
+    }
+}
@@ -40,13 +40,17 @@ import java.math.BigInteger;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -725,64 +729,168 @@ public class Utils {
             }
         });
 
-        // Phase 1: Check minimality
-        boolean[] marks = new boolean[model.getPatterns().size()];
-        for (int i = 0; i < model.getPatterns().size(); i++) {
-            Pattern p1 = model.getPatterns().get(i);
-            for (int j = i + 1; j < model.getPatterns().size(); j++) {
-                Pattern p2 = model.getPatterns().get(j);
-                if (!marks[j] && p1.length() < p2.length()) {
-                    if (p1.covers(p2)) { // if p1 covers p2 and gr(p2) < gr(p1) it means that p2 is not minimal.
-                        if (p1.getTraMeasure("GR") >= p2.getTraMeasure("GR")) {
-                            marks[j] = true;
-                        }
-                    }
+        // Index the patterns: a pattern can only cover the longer patterns that contain the keys of all its items,
+        // so the candidates are taken from the inverted index of its least frequent key.
+        ArrayList<Pattern> patterns = model.getPatterns();
+        int numPatterns = patterns.size();
+        double[] gr = new double[numPatterns];
+        int[][] keys = new int[numPatterns][];
+        long[] signatures = new long[numPatterns];
+        int[] firstLonger = new int[numPatterns];
+        HashMap<Object, Integer> keyIds = new HashMap<>();
+        for (int i = 0; i < numPatterns; i++) {
+            Pattern p = patterns.get(i);
+            gr[i] = p.getTraMeasure("GR");
+            int[] k = new int[p.length()];
+            for (int it = 0; it < p.length(); it++) {
+                Object key = coverKey(p.get(it));
+                Integer id = keyIds.get(key);
+                if (id == null) {
+                    id = keyIds.size();
+                    keyIds.put(key, id);
                 }
+                k[it] = id;
+            }
+            Arrays.sort(k);
+            int size = 0;
+            for (int it = 0; it < k.length; it++) {
+                if (size == 0 || k[size - 1] != k[it]) {
+                    k[size++] = k[it];
+                    signatures[i] |= 1L << (k[it] & 63);
+                }
+            }
+            keys[i] = Arrays.copyOf(k, size);
+        }
+        for (int i = numPatterns - 1; i >= 0; i--) {
+            if (i == numPatterns - 1 || patterns.get(i + 1).length() > patterns.get(i).length()) {
+                firstLonger[i] = i + 1;
+            } else {
+                firstLonger[i] = firstLonger[i + 1];
+            }
+        }
+        // The empty patterns cover all the patterns, so only the one with the greatest growth rate marks the others
+        // in the minimality phase. In the maximality phase a pattern is skipped if no longer one has a greater GR.
+        int bestEmpty = -1;
+        for (int i = 0; i < numPatterns && patterns.get(i).length() == 0; i++) {
+            if (bestEmpty == -1 || gr[i] > gr[bestEmpty]) {
+                bestEmpty = i;
             }
         }
-        // retain those patterns with marks == false
-        for (int i = 0; i < marks.length; i++) {
-            if (!marks[i]) {
-                minimalPatterns.add(model.getPatterns().get(i));
-                qmsMin.add(model.getPatterns().get(i).getTra_measures());
+        final int emptyCoverer = bestEmpty;
+        double[] maxGrFrom = new double[numPatterns + 1];
+        maxGrFrom[numPatterns] = Double.NEGATIVE_INFINITY;
+        for (int i = numPatterns - 1; i >= 0; i--) {
+            maxGrFrom[i] = Math.max(gr[i], maxGrFrom[i + 1]);
+        }
+        int[] postingSizes = new int[keyIds.size()];
+        for (int[] k : keys) {
+            for (int id : k) {
+                postingSizes[id]++;
+            }
+        }
+        int[][] postings = new int[keyIds.size()][];
+        for (int id = 0; id < postings.length; id++) {
+            postings[id] = new int[postingSizes[id]];
+            postingSizes[id] = 0;
+        }
+        for (int i = 0; i < numPatterns; i++) {
+            for (int id : keys[i]) {
+                postings[id][postingSizes[id]++] = i;
             }
         }
 
-        // Phase 2: check maximal patterns
-        marks = new boolean[model.getPatterns().size()];
-        for (int i = model.getPatterns().size() - 1; i >= 0; i--) {
-            Pattern p1 = model.getPatterns().get(i);
-            for (int j = i - 1; j >= 0; j--) {
-                Pattern p2 = model.getPatterns().get(j);
-                if (!marks[j] && p1.length() > p2.length()) {
-                    if (p2.covers(p1)) { // if p1 covers p2 and gr(p2) > gr(p1) it means that p2 is not maximal.
-                        if (p1.getTraMeasure("GR") >= p2.getTraMeasure("GR")) {
-                            marks[j] = true;
+        boolean[] minMarks = new boolean[numPatterns];
+        boolean[] maxMarks = new boolean[numPatterns];
+        int threads = Math.max(1, Math.min(numPatterns, Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            // Phase 1: Check minimality. Each thread marks the longer patterns covered by its own patterns.
+            ArrayList<Future<boolean[]>> minTasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int first = t;
+                minTasks.add(pool.submit(() -> {
+                    boolean[] marks = new boolean[numPatterns];
+                    for (int i = first; i < numPatterns; i += threads) {
+                        if (keys[i].length == 0 && i != emptyCoverer) {
+                            continue;
+                        }
+                        Pattern p1 = patterns.get(i);
+                        int[] candidates = leastFrequent(keys[i], postings);
+                        int from = candidates == null ? firstLonger[i] : firstIndexAtLeast(candidates, firstLonger[i]);
+                        int to = candidates == null ? numPatterns : candidates.length;
+                        for (int c = from; c < to; c++) {
+                            int j = candidates == null ? c : candidates[c];
+                            // if p1 covers p2 and gr(p2) < gr(p1) it means that p2 is not minimal.
+                            if (!marks[j] && gr[i] >= gr[j] && (signatures[i] & ~signatures[j]) == 0
+                                    && isSubset(keys[i], keys[j]) && p1.covers(patterns.get(j))) {
+                                marks[j] = true;
+                            }
                         }
                     }
+                    return marks;
+                }));
+            }
+            for (Future<boolean[]> task : minTasks) {
+                boolean[] marks = task.get();
+                for (int i = 0; i < numPatterns; i++) {
+                    minMarks[i] |= marks[i];
                 }
             }
-        }
-        // retain those patterns with marks == false
-        for (int i = 0; i < marks.length; i++) {
-            if (!marks[i]) {
-                maximalPatterns.add(model.getPatterns().get(i));
-                qmsMax.add(model.getPatterns().get(i).getTra_measures());
+
+            // Phase 2: check maximal patterns. Each thread looks for a longer pattern covered by each of its patterns.
+            ArrayList<Future<?>> maxTasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int first = t;
+                maxTasks.add(pool.submit(() -> {
+                    for (int j = first; j < numPatterns; j += threads) {
+                        if (maxGrFrom[firstLonger[j]] < gr[j]) {
+                            continue;
+                        }
+                        Pattern p2 = patterns.get(j);
+                        int[] candidates = leastFrequent(keys[j], postings);
+                        int from = candidates == null ? firstLonger[j] : firstIndexAtLeast(candidates, firstLonger[j]);
+                        int to = candidates == null ? numPatterns : candidates.length;
+                        for (int c = from; c < to && !maxMarks[j]; c++) {
+                            int i = candidates == null ? c : candidates[c];
+                            // if p2 covers p1 and gr(p2) <= gr(p1) it means that p2 is not maximal.
+                            if (gr[i] >= gr[j] && (signatures[j] & ~signatures[i]) == 0
+                                    && isSubset(keys[j], keys[i]) && p2.covers(patterns.get(i))) {
+                                maxMarks[j] = true;
+                            }
+                        }
+                    }
+                }));
             }
+            for (Future<?> task : maxTasks) {
+                task.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while filtering the patterns", ex);
+        } catch (ExecutionException ex) {
+            throw new RuntimeException("Error filtering the patterns", ex);
+        } finally {
+            pool.shutdown();
         }
 
         // Phase 3: Filter patterns by the threshold of a quality measure
-        for (int i = 0; i < model.getPatterns().size(); i++) {
-            if (model.getPatterns().get(i).getTraMeasure(by) >= threshold) {
-                filteredPatterns.add(model.getPatterns().get(i));
-                qmsFil.add(model.getPatterns().get(i).getTra_measures());
-            }
+        boolean[] passes = new boolean[numPatterns];
+        for (int i = 0; i < numPatterns; i++) {
+            passes[i] = patterns.get(i).getTraMeasure(by) >= threshold;
         }
 
         //Phase 4: Sets the patterns in model, get the averaged results and return
-        model.setPatternsFilteredByMeasure(filteredPatterns);
-        model.setPatternsFilteredMinimal(minimalPatterns);
-        model.setPatternsFilteredMaximal(maximalPatterns);
+        for (int i = 0; i < numPatterns; i++) {
+            if (!minMarks[i]) {
+                qmsMin.add(patterns.get(i).getTra_measures());
+            }
+            if (!maxMarks[i]) {
+                qmsMax.add(patterns.get(i).getTra_measures());
+            }
+            if (passes[i]) {
+                qmsFil.add(patterns.get(i).getTra_measures());
+            }
+        }
         HashMap<String, Double> AverageQualityMeasuresFiltered = AverageQualityMeasures(qmsFil);
         HashMap<String, Double> AverageQualityMeasuresMin = AverageQualityMeasures(qmsMin);
         HashMap<String, Double> AverageQualityMeasuresMax = AverageQualityMeasures(qmsMax);
@@ -791,24 +899,131 @@ public class Utils {
         qmsFil.add(AverageQualityMeasuresMax);
         qmsFil.add(AverageQualityMeasuresFiltered);
 
-        // Re-sort the patterns to be correctly copied to the input file
-        Comparator<Pattern> ruleNumberSort = (o1, o2) -> {
-            if (o1.getTraMeasure("RULE_NUMBER") > o2.getTraMeasure("RULE_NUMBER")) {
+        // Re-sort the patterns to be correctly copied to the input file. The filtered sets are subsequences of the
+        // patterns sorted by length, so they are taken in the order of the patterns sorted by rule number.
+        double[] ruleNumbers = new double[numPatterns];
+        Integer[] order = new Integer[numPatterns];
+        for (int i = 0; i < numPatterns; i++) {
+            ruleNumbers[i] = patterns.get(i).getTraMeasure("RULE_NUMBER");
+            order[i] = i;
+        }
+        Arrays.sort(order, (o1, o2) -> {
+            if (ruleNumbers[o1] > ruleNumbers[o2]) {
                 return 1;
-            } else if (o1.getTraMeasure("RULE_NUMBER") < o2.getTraMeasure("RULE_NUMBER")) {
+            } else if (ruleNumbers[o1] < ruleNumbers[o2]) {
                 return -1;
             } else {
                 return 0;
             }
-        };
-        model.getPatterns().sort(ruleNumberSort);
-        model.getPatternsFilteredByMeasure().sort(ruleNumberSort);
-        model.getPatternsFilteredMinimal().sort(ruleNumberSort);
-        model.getPatternsFilteredMaximal().sort(ruleNumberSort);
+        });
+        ArrayList<Pattern> sorted = new ArrayList<>(numPatterns);
+        for (int i : order) {
+            sorted.add(patterns.get(i));
+            if (!minMarks[i]) {
+                minimalPatterns.add(patterns.get(i));
+            }
+            if (!maxMarks[i]) {
+                maximalPatterns.add(patterns.get(i));
+            }
+            if (passes[i]) {
+                filteredPatterns.add(patterns.get(i));
+            }
+        }
+        for (int i = 0; i < numPatterns; i++) {
+            patterns.set(i, sorted.get(i));
+        }
+        model.setPatternsFilteredByMeasure(filteredPatterns);
+        model.setPatternsFilteredMinimal(minimalPatterns);
+        model.setPatternsFilteredMaximal(maximalPatterns);
         return qmsFil;
 
     }
 
+    /**
+     * Gets the key of an item used to index the patterns in
+     * {@link #filterPatterns(framework.GUI.Model, java.lang.String, float)}. An
+     * item can only cover another item with the same key: nominal items cover
+     * equal items, numeric items cover items of the same variable and fuzzy
+     * items cover items with the same fuzzy set.
+     *
+     * @param item The item
+     * @return The key of the item
+     */
+    private static Object coverKey(Item item) {
+        if (item instanceof NominalItem) {
+            return Arrays.asList("NOMINAL", item.getVariable(), ((NominalItem) item).getValue());
+        } else if (item instanceof NumericItem) {
+            return Arrays.asList("NUMERIC", item.getVariable());
+        } else {
+            // Fuzzy items are compared with ==, so -0.0 and 0.0 must get the same key.
+            Fuzzy f = ((FuzzyItem) item).getValue();
+            return Arrays.asList("FUZZY", f.getX0() + 0.0f, f.getX1() + 0.0f, f.getX3() + 0.0f);
+        }
+    }
+
+    /**
+     * Returns the shortest posting list of the given keys, or {@code null} if
+     * there are no keys, i.e., all the patterns are candidates.
+     *
+     * @param keys The keys of a pattern
+     * @param postings The posting list of each key
+     * @return The shortest posting list
+     */
+    private static int[] leastFrequent(int[] keys, int[][] postings) {
+        int[] result = null;
+        for (int id : keys) {
+            if (result == null || postings[id].length < result.length) {
+                result = postings[id];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the position of the first element of a sorted array that is
+     * greater or equal than the given value.
+     *
+     * @param sorted The sorted array
+     * @param value The value
+     * @return The position, or the length of the array if there is no such
+     * element
+     */
+    private static int firstIndexAtLeast(int[] sorted, int value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns whether all the elements of a sorted array are in other sorted
+     * array.
+     *
+     * @param subset The sorted array that may be the subset
+     * @param superset The sorted array that may be the superset
+     * @return {@code true} if {@code subset} is a subset of {@code superset}
+     */
+    private static boolean isSubset(int[] subset, int[] superset) {
+        int j = 0;
+        for (int value : subset) {
+            while (j < superset.length && superset[j] < value) {
+                j++;
+            }
+            if (j == superset.length || superset[j] != value) {
+                return false;
+            }
+            j++;
+        }
+        return true;
+    }
+
     /**
      * Saves the results of the patterns sets in the given folder. This creates
      * 5 files: RULES.txt, TRA_QUAC_NOFILTER.txt, TRA_QUAC_MINIMAL.txt and
@@ -5,26 +5,43 @@
  */
 package framework.utils.bsc_tree;
 
-import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.Random;
-import java.util.Stack;
-import javafx.util.Pair;
 
 /**
  * Class that represents a Bit-String Compression Tree (BSC-Tree) This class
  * represents the bit string that represents if an item i appears in transaction
  * k.
+ * <p>
+ * The tree is word-aligned: its leaves are the 64-bit words of the bit string,
+ * and the subtrees whose bits are all 0 are removed. Thus, the tree is stored
+ * as the array of path codes of the non-zero leaves, i.e., the index of each
+ * word in increasing order, together with the words themselves. The ANDing of
+ * trees is a merge of the path codes where the words are joined by bit
+ * operations, and the counts are obtained with {@link Long#bitCount(long)}.
  *
  * @author angel
  */
 public class BSCTree {
 
     /**
-     * The root of the BSCTree
+     * The path codes of the non-zero leaves, in increasing order
      */
-    private BSCTreeNode root;
-    private ArrayList<Pair<String, Integer>> pathCodes;
+    private int[] pathCodes;
+
+    /**
+     * The bits of each leaf
+     */
+    private long[] words;
+
+    /**
+     * The number of non-zero leaves
+     */
+    private int size;
+
+    /**
+     * The number of 1 bits in the tree
+     */
+    private int counts;
 
     /**
      * Construct a BSC-Tree with the given bit string
@@ -32,195 +49,101 @@ public class BSCTree {
      * @param bitString The bit string
      */
     public BSCTree(String bitString) {
-        generateTree(bitString, 2);
-        pathCodes = getPathCodes();
+        long[] bits = new long[(bitString.length() + 63) >>> 6];
+        for (int i = 0; i < bitString.length(); i++) {
+            if (bitString.charAt(i) == '1') {
+                bits[i >>> 6] |= 1L << i;
+            }
+        }
+        generateTree(bits);
     }
 
     /**
-     * Generates the BSC-Tree
+     * Construct a BSC-Tree with the given bit string, where the bit k is the bit
+     * {@code k % 64} of the word {@code bits[k / 64]}
      *
-     * @param bitString
-     * @param N
+     * @param bits The bit string
      */
-    private void generateTree(String bitString, int N) {
-        int L = 1;
-        int BSL = (int) Math.pow(N, L - 1.0);
-        char currentBitType;
-        BSCTreeNode temporaryNode = new BSCTreeNode();
-        Stack<BSCTreeNode> stack = new Stack<>();
-        int pos = 0;
-        //for(char bit : bitString.toCharArray()){
-        while (pos < bitString.length()) {
-            currentBitType = bitString.charAt(pos);
-            if (temporaryNode.numBits == 0) {
-                temporaryNode.setBitType(currentBitType);
-            }
-            if (temporaryNode.numBits < BSL) {
-                if (temporaryNode.getBitType() != currentBitType) {
-                    // Break the node down decreasing the level of L correspondingly
-                    ArrayList<BSCTreeNode> breakDown = temporaryNode.breakDown(L, currentBitType);
-                    for (BSCTreeNode node : breakDown) {
-                        stack.push(node);
-                    }
-                    stack.push(new BSCTreeNode(1, currentBitType, currentBitType == '1' ? 1 : 0, 1));
-                    temporaryNode.clean();
-                } else if (currentBitType == '1') {
-                    temporaryNode.setOneBitCount(temporaryNode.getOneBitCount() + 1);
-                }
-                temporaryNode.numBits++;
-                pos++;
-            } else {
-                // The num of bits is equal to BSL
-                BSCTreeNode newNode = new BSCTreeNode(temporaryNode);
-                newNode.setNodeLevel(L);
-                stack.push(newNode);
-                temporaryNode.clean();
-                while (checkSameVirtualLevelNodes(stack)) {
-                    BSCTreeNode node1 = stack.pop();
-                    BSCTreeNode node2 = stack.pop();
-                    BSCTreeNode merged = null;
-                    if (node1.getBitType() == node2.getBitType() && node1.getBitType() != 'm' && node2.getBitType() != 'm') {
-                        // Merge the nodes
-                        merged = new BSCTreeNode(node1.getNodeLevel() + 1, node1.getBitType(), node1.getOneBitCount() + node2.getOneBitCount(), node1.numBits + node2.numBits);
-                        // Upgrade the level of L
-                        //L++;
-                    } else {
-                        // Merge the nodes
-                        merged = new BSCTreeNode(node1.getNodeLevel() + 1, 'm', node1.getOneBitCount() + node2.getOneBitCount(), node1.numBits + node2.numBits);
-                        // keep the poped nodes as children.
-                        merged.setLeft(node2);
-                        merged.setRight(node1);
-                    }
-                    stack.push(merged);
-                }
-            }
-        }
-        // CATCH THE LAST TEMPORARY NODE BIT AND ADD IT INTO THE STACK
-        BSCTreeNode newNode = new BSCTreeNode(temporaryNode);
-        newNode.setNodeLevel(L);
-        stack.push(newNode);
-        temporaryNode.clean();
-        while (checkSameVirtualLevelNodes(stack)) {
-            BSCTreeNode node1 = stack.pop();
-            BSCTreeNode node2 = stack.pop();
-            BSCTreeNode merged = null;
-            if (node1.getBitType() == node2.getBitType() && node1.getBitType() != 'm' && node2.getBitType() != 'm') {
-                // Merge the nodes
-                merged = new BSCTreeNode(node1.getNodeLevel() + 1, node1.getBitType(), node1.getOneBitCount() + node2.getOneBitCount(), node1.numBits + node2.numBits);
-                // Upgrade the level of L
-                //L++;
-            } else {
-                // Merge the nodes
-                merged = new BSCTreeNode(node1.getNodeLevel() + 1, 'm', node1.getOneBitCount() + node2.getOneBitCount(), node1.numBits + node2.numBits);
-                // keep the poped nodes as children.
-                merged.setLeft(node2);
-                merged.setRight(node1);
-            }
-            stack.push(merged);
-        }
-
-        // JOIN THE NODES AND CREATE THE TREE
-        while (!stack.empty()) {
-            BSCTreeNode node1 = stack.pop();
-            if (stack.empty()) {
-                // Set node1 as root node
-                root = node1;
-            } else {
-                // more than one tree left
-                BSCTreeNode node2 = stack.pop();
-                if (node1.getNodeLevel() == node2.getNodeLevel()) {
-                    BSCTreeNode merged = new BSCTreeNode(node1.getNodeLevel() + 1, node1.getBitType() == node2.getBitType() ? node1.getBitType() : 'm', node1.getOneBitCount() + node2.getOneBitCount(), node1.numBits + node2.numBits);
-                    // keep nodes as chidren
-                    if (merged.getBitType() == 'm') {
-                        merged.setLeft(node2);
-                        merged.setRight(node1);
-                    }
-                    stack.push(merged);
-                } else {
-                    if (node1.getNodeLevel() < node2.getNodeLevel()) {
-                        node1.setNodeLevel(node1.getNodeLevel() + 1);
-                    } else {
-                        node2.setNodeLevel(node2.getNodeLevel() + 1);
-                    }
-                    stack.push(node2);
-                    stack.push(node1);
-                }
-            }
-        }
+    public BSCTree(long[] bits) {
+        generateTree(bits);
     }
 
     /**
-     * It checks wheter the stack has two nodes in the same virtual level.
+     * Creates an empty tree with room for the given number of leaves
      *
-     * @param stack
-     * @return
+     * @param capacity
      */
-    private static boolean checkSameVirtualLevelNodes(Stack<BSCTreeNode> stack) {
-        if (stack.size() <= 1) {
-            return false;
-        }
-        BSCTreeNode node1 = stack.get(stack.size() - 1);
-        BSCTreeNode node2 = stack.get(stack.size() - 2);
-        return node1.getNodeLevel() == node2.getNodeLevel();
-    }
-
-    public ArrayList<Pair<String, Integer>> getPathCodes() {
-        ArrayList<Pair<String, Integer>> result = new ArrayList<>();
-        getPathCodes(root, result, "");
-        return result;
+    private BSCTree(int capacity) {
+        pathCodes = new int[capacity];
+        words = new long[capacity];
+        size = 0;
+        counts = 0;
     }
 
-    private void getPathCodes(BSCTreeNode node, ArrayList<Pair<String, Integer>> results, String pathCode) {
-        if (node.getLeft() != null && node.getRight() != null) {
-            // The node is not a leaf node
-            // Go to the left child
-            getPathCodes(node.getLeft(), results, pathCode + "0");
-            // Go to the right child
-            getPathCodes(node.getRight(), results, pathCode + "1");
-        } else // The node is a leaf, check if it is a 1-bit leaf
-        {
-            if (node.getBitType() == '1') { // If 1-bit leaf node, store as a result
-                Pair pair = new Pair(pathCode, node.getOneBitCount());
-                results.add(pair);
+    /**
+     * Generates the BSC-Tree, keeping only the non-zero words
+     *
+     * @param bits
+     */
+    private void generateTree(long[] bits) {
+        int nonZero = 0;
+        for (long word : bits) {
+            if (word != 0) {
+                nonZero++;
+            }
+        }
+        pathCodes = new int[nonZero];
+        words = new long[nonZero];
+        size = 0;
+        counts = 0;
+        for (int i = 0; i < bits.length; i++) {
+            if (bits[i] != 0) {
+                add(i, bits[i]);
             }
         }
     }
 
+    /**
+     * Appends a leaf at the end of the tree
+     *
+     * @param pathCode
+     * @param word
+     */
+    private void add(int pathCode, long word) {
+        pathCodes[size] = pathCode;
+        words[size] = word;
+        size++;
+        counts += Long.bitCount(word);
+    }
+
     /**
      * Performs the and operation of {@code this} and {@code other} and return
-     * an array of path codes that is the resulting path code of result of
-     * applying the and operator to this BSC-Trees
+     * the BSC-Tree that is the result of applying the and operator to this
+     * BSC-Trees
      *
      * @param other
-     * @return The path code of the "and" BSC-Tree
+     * @return The "and" BSC-Tree
      */
-    private ArrayList<Pair<String, Integer>> and(BSCTree other) {
-        ArrayList<Pair<String, Integer>> array3 = new ArrayList<>();
-        int index1, index2, index3;
-        index1 = index2 = index3 = 0;
-
-        while (index1 < this.pathCodes.size() && index2 < other.pathCodes.size()) {
-            // If the path codes pointed by index1 and index2 are the same in both arrays 1 and 2
-            if (this.pathCodes.get(index1).getKey().equals(other.pathCodes.get(index2).getKey())) {
-                // Store the path code pointed by index 1 in array3
-                array3.add(this.pathCodes.get(index1));
-                index1++;
-                index2++;
-                index3++;
-            } else if (isSubCode(this.pathCodes.get(index1).getKey(), other.pathCodes.get(index2).getKey())) {
-                // if the path code in array1 is the subcode of the pathcode of array2
-                array3.add(this.pathCodes.get(index1));
+    private BSCTree and(BSCTree other) {
+        BSCTree result = new BSCTree(Math.min(this.size, other.size));
+        int index1 = 0;
+        int index2 = 0;
+
+        while (index1 < this.size && index2 < other.size) {
+            if (this.pathCodes[index1] == other.pathCodes[index2]) {
+                long word = this.words[index1] & other.words[index2];
+                if (word != 0) {
+                    result.add(this.pathCodes[index1], word);
+                }
                 index1++;
-            } else if (isSubCode(other.pathCodes.get(index2).getKey(), this.pathCodes.get(index1).getKey())) {
-                array3.add(other.pathCodes.get(index2));
                 index2++;
-            } else if (isLarger(this.pathCodes.get(index1).getKey(), other.pathCodes.get(index2).getKey())) {
+            } else if (this.pathCodes[index1] < other.pathCodes[index2]) {
                 index1++;
             } else {
                 index2++;
             }
         }
-        return array3;
+        return result;
     }
 
     /**
@@ -230,53 +153,14 @@ public class BSCTree {
      * @return
      */
     public int getCounts() {
-        int counts = 0;
-        for (Pair<String, Integer> pathCode : pathCodes) {
-            counts += pathCode.getValue();
-        }
         return counts;
     }
 
-    /**
-     * It returns whether {@code pathCode1} is a subcode of {@code pathCode2}
-     *
-     * @param pathCode1
-     * @param pathCode2
-     * @return
-     */
-    private boolean isSubCode(String pathCode1, String pathCode2) {
-        if (pathCode2.length() > pathCode1.length()) {
-            return false;
-        }
-        String regex = "^" + pathCode2 + ".*";
-
-        return pathCode1.matches(regex);
-    }
-
-    /**
-     * It returns whether {@code pathCode2} is larger than {@code pathCode1}
-     *
-     * @param pathCode1
-     * @param pathCode2
-     * @return
-     */
-    private boolean isLarger(String pathCode1, String pathCode2) {
-        int minor = pathCode1.length() < pathCode2.length() ? pathCode1.length() : pathCode2.length();
-
-        for (int i = 0; i < minor; i++) {
-            if (pathCode2.charAt(i) > pathCode1.charAt(i)) {
-                return true;
-            } else if (pathCode2.charAt(i) < pathCode1.charAt(i)) {
-                return false;
-            }
-        }
-
-        return pathCode2.length() > pathCode1.length();
-    }
-
     /**
      * It performs the ANDing operation of {@code this} with an undefined set of
-     * BSC-Trees and returns the final counts
+     * BSC-Trees and returns the final counts. The leaves of {@code this} are
+     * looked up in the rest of trees at the same time, so no intermediate tree
+     * is created.
      *
      * @param trees
      * @return
@@ -286,15 +170,25 @@ public class BSCTree {
             return this.getCounts();
         }
         int result = 0;
-
-        BSCTree aux = new BSCTree("0");
-        aux.pathCodes = this.and(trees.get(0));
-        for (int i = 1; i < trees.size(); i++) {
-            aux.pathCodes = aux.and(trees.get(i));
-        }
-
-        for (Pair<String, Integer> pair : aux.pathCodes) {
-            result += pair.getValue();
+        int[] index = new int[trees.size()];
+
+        for (int i = 0; i < size; i++) {
+            int pathCode = pathCodes[i];
+            long word = words[i];
+            for (int t = 0; t < trees.size() && word != 0; t++) {
+                BSCTree other = trees.get(t);
+                int j = index[t];
+                while (j < other.size && other.pathCodes[j] < pathCode) {
+                    j++;
+                }
+                index[t] = j;
+                if (j < other.size && other.pathCodes[j] == pathCode) {
+                    word &= other.words[j];
+                } else {
+                    word = 0;
+                }
+            }
+            result += Long.bitCount(word);
         }
 
         return result;
@@ -302,37 +196,30 @@ public class BSCTree {
 
     /**
      * It checks if the item that represents this BSC-Tree covers {@code other},
-     * i.e., if the pathCode of {@code this.and(other)} is equal to
-     * {@code other.pathCodes} and it means that {@code this} covers {@code other}
+     * i.e., if the result of {@code this.and(other)} is equal to {@code other}
+     * and it means that {@code this} covers {@code other}
      *
      * @param other
      * @return
      */
     public boolean covers(BSCTree other) {
-        // Perfoms the and
-        ArrayList<Pair<String, Integer>> and = this.and(other);
-        
-        if (and.isEmpty() && !other.pathCodes.isEmpty()) {
-            return false;
-        }
-        if (and.size() != other.pathCodes.size()) {
-            return false;
-        }
-        
-        // Checks if the and pathCode is equal to the path code of other
-        for (Pair<String, Integer> pathCode : and) {
-            if (!other.pathCodes.contains(pathCode)) {
+        int index1 = 0;
+        for (int index2 = 0; index2 < other.size; index2++) {
+            while (index1 < this.size && this.pathCodes[index1] < other.pathCodes[index2]) {
+                index1++;
+            }
+            if (index1 == this.size || this.pathCodes[index1] != other.pathCodes[index2]) {
+                return false;
+            }
+            if ((this.words[index1] & other.words[index2]) != other.words[index2]) {
                 return false;
             }
         }
 
         return true;
-
     }
 
     public BSCTree And(BSCTree other) {
-        BSCTree result = new BSCTree("");
-        result.pathCodes = this.and(other);
-        return result;
+        return this.and(other);
     }
 }
@@ -26,6 +26,8 @@ package framework.utils.cptree;
 import algorithms.topk.*;
 import framework.items.Item;
 import framework.items.Pattern;
+import framework.items.NominalItem;
+import java.util.ArrayList;
 import java.util.HashMap;
 
 /**
@@ -44,6 +46,24 @@ public class CPTree {
      */
     private Node root;
 
+    /**
+     * The id of each item, i.e., its position in the sibling order of the tree
+     * (descending support-ratio, and lexicographical order for ties). It is
+     * computed on the first insertion after the creation or clearing of the
+     * tree.
+     */
+    private HashMap<Item, Integer> ids;
+
+    /**
+     * The items ordered by its id
+     */
+    private Item[] itemsById;
+
+    /**
+     * Auxiliar array where the ids of the pattern to insert are stored
+     */
+    private int[] path = new int[16];
+
     /**
      * Default constructor. Creates an empty root node.
      */
@@ -58,7 +78,44 @@ public class CPTree {
      * @param supportRatio The support-ratio values for each item in the dataset to perform sorting of nodes
      */
     public void insert(Pattern pattern, HashMap<Item, Double> supportRatio) {
-        root.insert(pattern, root, supportRatio);
+        if (ids == null) {
+            computeIds(supportRatio);
+        }
+        if (path.length < pattern.length()) {
+            path = new int[pattern.length()];
+        }
+        // The pattern is inserted from its last item to the first one
+        int length = pattern.length();
+        for (int i = 0; i < length; i++) {
+            path[i] = ids.get(pattern.get(length - 1 - i));
+        }
+        root.insert(path, length, pattern.getClase(), itemsById);
+    }
+
+    /**
+     * Sorts the items by descending support-ratio (and lexicographical order
+     * for ties) and assigns to each one its position as id.
+     *
+     * @param supportRatio The support-ratio values for each item in the dataset
+     */
+    private void computeIds(HashMap<Item, Double> supportRatio) {
+        ArrayList<Item> sorted = new ArrayList<>(supportRatio.keySet());
+        sorted.sort((o1, o2) -> {
+            double gr1 = supportRatio.get(o1);
+            double gr2 = supportRatio.get(o2);
+            if (gr1 > gr2) {
+                return -1;
+            } else if (gr1 < gr2) {
+                return 1;
+            } else {
+                return ((NominalItem) o1).compareTo(o2);
+            }
+        });
+        ids = new HashMap<>();
+        itemsById = sorted.toArray(new Item[sorted.size()]);
+        for (int i = 0; i < itemsById.length; i++) {
+            ids.put(itemsById[i], i);
+        }
     }
 
     /**
@@ -70,6 +127,8 @@ public class CPTree {
     
     public void clear(){
         root = new Node();
+        ids = null;
+        itemsById = null;
     }
 
 }
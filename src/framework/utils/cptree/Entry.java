@@ -36,6 +36,11 @@ import framework.items.Item;
 public class Entry {
 
     private Item item;
+    /**
+     * The position of the item in the sibling order of the tree (descending
+     * support-ratio), used to search and sort the entries of a node
+     */
+    private int id = -1;
     private int countD1;
     private int countD2;
     private Node child;
@@ -73,6 +78,7 @@ public class Entry {
     @Override
     public Object clone() {
         Entry a = new Entry(this.item);
+        a.id = this.id;
         a.countD1 = this.countD1;
         a.countD2 = this.countD2;
         a.merged = false;
@@ -87,6 +93,7 @@ public class Entry {
             a.child = new Node();
             for(Entry entry : this.child.getItems()){
                 Entry copy = new Entry(entry.item);
+                copy.id = entry.id;
                 a.child.getItems().add(copy);
             }
             a.child.setItemNumber(this.child.itemNumber);
@@ -111,6 +118,20 @@ public class Entry {
         this.item = item;
     }
 
+    /**
+     * @return the id of the item in the sibling order
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @param id the id of the item in the sibling order
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
     /**
      * @return the countD1
      */
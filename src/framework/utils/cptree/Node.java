@@ -25,11 +25,7 @@ package framework.utils.cptree;
 
 import algorithms.topk.*;
 import framework.items.Item;
-import framework.items.NominalItem;
-import framework.items.Pattern;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 
 /**
  * Class that represent a node of the CP-Tree
@@ -99,56 +95,69 @@ public class Node {
         return n.item.equals(this.item);
     }*/
     /**
-     * Adds the given pattern recursively on the tree and sum its counts
+     * Adds the given pattern on the tree, walking down from this node, and sum
+     * its counts. The entries of each node are kept sorted by id, i.e., by
+     * support-ratio descending order.
      *
-     * @param p The pattern ordered in inverse order than the ordering given by
-     * < operator. @pa ram n The node where pattern will be inserted
+     * @param path The ids of the items of the pattern, in the order they must
+     * be inserted
+     * @param length The number of items in {@code path}
+     * @param clase The class of the pattern (0 for D1, otherwise D2)
+     * @param itemsById The item corresponding to each id
      */
-    public void insert(Pattern p, Node n, HashMap<Item, Double> supportRatio) {
-
-        Item it = p.get(p.length() - 1);
-        Entry check = new Entry(it, 0);
-        int index = 0;
-        if (n.getItems().contains(check)) {
-            // get the node and sum it counts
-            index = n.getItems().indexOf(check);
-            // sum counts in D1 or D2
-            if (p.getClase() == 0) {
-                n.getItems().get(index).setCountD1(n.getItems().get(index).getCountD1() + 1);
+    public void insert(int[] path, int length, int clase, Item[] itemsById) {
+        Node n = this;
+        for (int k = 0; k < length; k++) {
+            int index = n.search(path[k]);
+            Entry e;
+            if (index >= 0) {
+                // sum counts in D1 or D2
+                e = n.items.get(index);
+                if (clase == 0) {
+                    e.setCountD1(e.getCountD1() + 1);
+                } else {
+                    e.setCountD2(e.getCountD2() + 1);
+                }
             } else {
-                n.getItems().get(index).setCountD2(n.getItems().get(index).getCountD2() + 1);
+                // Insert the item at its place
+                e = new Entry(itemsById[path[k]], clase);
+                e.setId(path[k]);
+                n.items.add(-index - 1, e);
+                n.itemNumber++;
             }
-        } else {
-            // Insert the item
-            n.getItems().add(new Entry(it, p.getClase()));
-            // incremen itemNumber
-            n.itemNumber++;
-            // sorts items and counts by support-ratio descending order
-            n.getItems().sort(Collections.reverseOrder((o1, o2) -> {
-                double gr1 = supportRatio.get(o1.getItem());
-                double gr2 = supportRatio.get(o2.getItem());
-                if (gr1 > gr2) {
-                    return 1;
-                } else if (gr1 < gr2) {
-                    return -1;
-                } else {
-                    return -1 * ((NominalItem) o1.getItem()).compareTo(o2.getItem());
+
+            if (k < length - 1) {
+                if (e.getChild() == null) {
+                    // create a new node if subtree is empty
+                    e.setChild(new Node());
                 }
-            }));
-            index = n.getItems().indexOf(check);
+                n = e.getChild();
+            }
         }
+    }
 
-        // Go down recursively
-        Pattern a = p.clone();
-        a.getItems().remove(a.length() - 1);
-        if (!a.getItems().isEmpty()) {
-            if (n.getItems().get(index).getChild() == null) {
-                // create a new node if subtree is empty
-                n.getItems().get(index).setChild(new Node());
+    /**
+     * Binary search of the entry with the given id
+     *
+     * @param id The id of the item
+     * @return The position of the entry, or {@code -(insertion point) - 1} if
+     * it is not in the node
+     */
+    private int search(int id) {
+        int low = 0;
+        int high = items.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = items.get(mid).getId();
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
             }
-            insert(a, n.getItems().get(index).getChild(), supportRatio);
         }
-
+        return -(low + 1);
     }
 
     /**
@@ -156,50 +165,78 @@ public class Node {
      * and existing-node changes, but no nodes deletion), while T1 remains
      * unchanged. The merge must be done T1 is the subtree and T2 is T1's
      * parent. Else, the function would cause an stack overflow.
+     * <p>
+     * The entries of both nodes are sorted by id, so the entries of T1 are
+     * searched by binary search and the new ones are inserted in order by means
+     * of a single pass over both lists. If {@code reuse} is {@code true}, T1 is
+     * going to be discarded after the merge, so its entries (and their
+     * subtrees) are moved into {@code this} instead of being copied.
      *
      * @param T1
-     * @param supportRatio
+     * @param reuse {@code true} if the entries of T1 can be moved into
+     * {@code this}, {@code false} to copy them and leave T1 unchanged
      */
-    public void merge(Node T1, HashMap<Item, Double> supportRatio) {
+    public void merge(Node T1, boolean reuse) {
+        ArrayList<Entry> newEntries = null;
         // for each T1.item do
         for (int i = 0; i < T1.itemNumber; i++) {
-            Entry item = T1.getItems().get(i);
-            //item.merged = true;
-            T1.getItems().get(i).merged =true;
-            int pos = -1;
+            Entry item = T1.items.get(i);
             // search T2 for T2.items[j] = T1.items[i]
-            if (this.getItems().contains(item)) {
+            int pos = search(item.getId());
+            Entry target;
+            if (pos >= 0) {
                 // is T2.items[j] found
-                pos = this.getItems().indexOf(item);
-                this.getItems().get(pos).setCountD1(this.getItems().get(pos).getCountD1() + item.getCountD1());
-                this.getItems().get(pos).setCountD2(this.getItems().get(pos).getCountD2() + item.getCountD2());
+                target = items.get(pos);
+                target.setCountD1(target.getCountD1() + item.getCountD1());
+                target.setCountD2(target.getCountD2() + item.getCountD2());
+            } else if (reuse) {
+                // Move T1.items[i] with its counts and child
+                if (newEntries == null) {
+                    newEntries = new ArrayList<>();
+                }
+                newEntries.add(item);
+                continue;
             } else {
-                // Insert T1.items[i] with it counts and child at the appropiate place of T2 obeyin the order
-                this.getItems().add((Entry) item.clone());
-                this.getItems().sort(Collections.reverseOrder((o1, o2) -> {
-                    double gr1 = supportRatio.get(o1.getItem());
-                    double gr2 = supportRatio.get(o2.getItem());
-                    if (gr1 > gr2) {
-                        return 1;
-                    } else if (gr1 < gr2) {
-                        return 1;
-                    } else {
-                        return -1*((NominalItem) o1.getItem()).compareTo(o2.getItem());
-                    }
-                }));
-                this.itemNumber++;
-                pos = this.getItems().indexOf(item);
+                // Copy T1.items[i] with its counts, the child is copied below
+                target = new Entry(item.getItem());
+                target.setId(item.getId());
+                target.setCountD1(item.getCountD1());
+                target.setCountD2(item.getCountD2());
+                if (newEntries == null) {
+                    newEntries = new ArrayList<>();
+                }
+                newEntries.add(target);
+            }
+            if (!reuse) {
+                item.merged = true;
             }
             // If T1.items subtree is not empty
             if (item.getChild() != null) {
                 // If T2.items[j] subtree is empty
-                if (this.getItems().get(pos).getChild() == null) {
+                if (target.getChild() == null) {
                     // create a new node as this.items[j] subtree
-                    this.getItems().get(pos).setChild(new Node());
+                    target.setChild(new Node());
                 }
                 // recursive call
-                this.items.get(pos).getChild().merge(item.getChild(), supportRatio);
+                target.getChild().merge(item.getChild(), reuse);
+            }
+        }
+
+        if (newEntries != null) {
+            // Insert the new entries at the appropiate place obeying the order
+            ArrayList<Entry> merged = new ArrayList<>(items.size() + newEntries.size());
+            int k = 0;
+            for (Entry e : newEntries) {
+                while (k < items.size() && items.get(k).getId() < e.getId()) {
+                    merged.add(items.get(k++));
+                }
+                merged.add(e);
+            }
+            while (k < items.size()) {
+                merged.add(items.get(k++));
             }
+            items = merged;
+            itemNumber += newEntries.size();
         }
     }
 
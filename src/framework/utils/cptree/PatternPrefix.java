@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2016 angel.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package framework.utils.cptree;
+
+import framework.items.Item;
+import framework.items.Pattern;
+import java.util.ArrayList;
+
+/**
+ * Immutable representation of a candidate pattern during the mining of a
+ * CP-Tree. Each prefix stores its last item and a reference to the prefix it
+ * extends, so extending a pattern by one item only creates one object and the
+ * prefixes are shared among all the patterns of the same branch. A
+ * {@link Pattern} is only built when the candidate is accepted.
+ *
+ * @author Ángel M. García-Vico
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public final class PatternPrefix {
+
+    /**
+     * The prefix extended by this one, or {@code null} for a single item
+     */
+    private final PatternPrefix parent;
+
+    /**
+     * The last item of the pattern
+     */
+    private final Item item;
+
+    /**
+     * The number of items in the pattern
+     */
+    private final int length;
+
+    /**
+     * Creates the pattern that extends {@code parent} with the given item.
+     *
+     * @param parent The prefix to extend, or {@code null} for the empty
+     * pattern
+     * @param item The item to add
+     */
+    public PatternPrefix(PatternPrefix parent, Item item) {
+        this.parent = parent;
+        this.item = item;
+        this.length = parent == null ? 1 : parent.length + 1;
+    }
+
+    /**
+     * @return the prefix extended by this one, or {@code null} for a single
+     * item
+     */
+    public PatternPrefix getParent() {
+        return parent;
+    }
+
+    /**
+     * @return the last item of the pattern
+     */
+    public Item getItem() {
+        return item;
+    }
+
+    /**
+     * @return the number of items in the pattern
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Builds the pattern represented by this prefix, with the items in the
+     * order they were added.
+     *
+     * @param clase The class of the pattern
+     * @return A new pattern
+     */
+    public Pattern toPattern(int clase) {
+        Item[] items = new Item[length];
+        PatternPrefix p = this;
+        for (int i = length - 1; i >= 0; i--) {
+            items[i] = p.item;
+            p = p.parent;
+        }
+        ArrayList<Item> list = new ArrayList<>(length);
+        for (Item it : items) {
+            list.add(it);
+        }
+        return new Pattern(list, clase);
+    }
+}